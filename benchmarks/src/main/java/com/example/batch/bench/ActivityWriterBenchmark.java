@@ -0,0 +1,70 @@
+package com.example.batch.bench;
+
+import com.example.batch.model.Activity;
+import com.example.batch.writer.ActivityBulkWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.Chunk;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side cost of turning a chunk of activities into one bulk write:
+ * model assembly, id mapping and BSON encoding, with no server round trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivityWriterBenchmark {
+
+    @Param({"100", "1000"})
+    private int chunkSize;
+
+    @Param({"false", "true"})
+    private boolean codecs;
+
+    @Param({"UPSERT", "INSERT"})
+    private String mode;
+
+    private AnnotationConfigApplicationContext context;
+
+    private ActivityBulkWriter writer;
+
+    private Chunk<Activity> chunk;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = PipelineContext.create(Map.of(
+                "batch.mapping.codecs.enabled", codecs,
+                "batch.activity.writer.mode", mode));
+        writer = context.getBean(ActivityBulkWriter.class);
+        chunk = new Chunk<>(Fixtures.activities(chunkSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long writeChunk() throws InterruptedException {
+        writer.write(chunk);
+        return InMemoryMongo.bytesWritten;
+    }
+}
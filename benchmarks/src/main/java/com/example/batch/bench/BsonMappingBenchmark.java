@@ -0,0 +1,121 @@
+package com.example.batch.bench;
+
+import com.example.batch.codec.ActivityCodec;
+import com.example.batch.codec.MemberCodec;
+import com.example.batch.model.Activity;
+import com.example.batch.model.Member;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-written codecs with the reflective mapping converter,
+ * each measured from BSON bytes to entity and back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BsonMappingBenchmark {
+
+    private final MemberCodec memberCodec = new MemberCodec();
+
+    private final ActivityCodec activityCodec = new ActivityCodec();
+
+    private final Codec<Document> documentCodec = InMemoryMongo.CODECS.get(Document.class);
+
+    private MongoConverter converter;
+
+    private Member member;
+
+    private Activity activity;
+
+    private byte[] memberBytes;
+
+    private byte[] activityBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        converter = InMemoryMongo.template().getConverter();
+        member = Fixtures.member("64b7f0c2a1b2c3d4e5f60718", "active");
+        activity = new Activity(member.getId(), "Policy check", Instant.parse("2024-01-01T00:00:00Z"));
+        memberBytes = encode(memberCodec, member);
+        activityBytes = encode(activityCodec, activity);
+    }
+
+    @Benchmark
+    public Member decodeMemberCodec() {
+        return memberCodec.decode(reader(memberBytes), DecoderContext.builder().build());
+    }
+
+    @Benchmark
+    public Member decodeMemberConverter() {
+        return converter.read(Member.class, documentCodec.decode(reader(memberBytes), DecoderContext.builder().build()));
+    }
+
+    @Benchmark
+    public byte[] encodeActivityCodec() {
+        return encode(activityCodec, activity);
+    }
+
+    @Benchmark
+    public byte[] encodeActivityConverter() {
+        Document document = new Document();
+        converter.write(activity, document);
+        return encode(documentCodec, document);
+    }
+
+    @Benchmark
+    public Activity decodeActivityCodec() {
+        return activityCodec.decode(reader(activityBytes), DecoderContext.builder().build());
+    }
+
+    @Benchmark
+    public Activity decodeActivityConverter() {
+        return converter.read(Activity.class, documentCodec.decode(reader(activityBytes), DecoderContext.builder().build()));
+    }
+
+    @Benchmark
+    public byte[] encodeMemberCodec() {
+        return encode(memberCodec, member);
+    }
+
+    @Benchmark
+    public byte[] encodeMemberConverter() {
+        Document document = new Document();
+        converter.write(member, document);
+        return encode(documentCodec, document);
+    }
+
+    private static BsonBinaryReader reader(byte[] bytes) {
+        return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+    }
+
+    private static <T> byte[] encode(Codec<T> codec, T value) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        codec.encode(new BsonBinaryWriter(buffer), value, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.batch.bench;
+
+import com.example.batch.model.Activity;
+import com.example.batch.model.Member;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static Member member(String id, String policyStatus) {
+        Member member = new Member();
+        member.setId(id);
+        member.setName("Member " + id);
+        member.setStatus("active");
+        member.setPolicyStatus(policyStatus);
+        member.setUpdatedAt(Instant.parse("2024-01-01T00:00:00Z"));
+        return member;
+    }
+
+    static List<Activity> activities(int count) {
+        List<Activity> activities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            activities.add(new Activity(new ObjectId().toHexString(), "Policy check", Instant.now()));
+        }
+        return activities;
+    }
+}
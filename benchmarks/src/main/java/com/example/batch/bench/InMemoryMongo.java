@@ -0,0 +1,108 @@
+package com.example.batch.bench;
+
+import com.example.batch.codec.ActivityCodec;
+import com.example.batch.codec.MemberCodec;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+/**
+ * Offline stand-in for a Mongo server. Collections accept bulk writes by
+ * BSON-encoding every document, so the client-side cost of a write is paid
+ * without a network round trip. Anything else the pipeline does not use
+ * during the benchmarks returns {@code null}.
+ */
+final class InMemoryMongo {
+
+    static final CodecRegistry CODECS = CodecRegistries.fromRegistries(
+            CodecRegistries.fromCodecs(new MemberCodec(), new ActivityCodec()),
+            MongoClientSettings.getDefaultCodecRegistry());
+
+    /** Total bytes encoded by bulk writes, kept so the work cannot be optimised away. */
+    static long bytesWritten;
+
+    private InMemoryMongo() {
+    }
+
+    static MongoTemplate template() {
+        return new MongoTemplate(databaseFactory());
+    }
+
+    static MongoDatabaseFactory databaseFactory() {
+        MongoDatabase database = database();
+        MongoExceptionTranslator translator = new MongoExceptionTranslator();
+        return (MongoDatabaseFactory) Proxy.newProxyInstance(InMemoryMongo.class.getClassLoader(),
+                new Class<?>[]{MongoDatabaseFactory.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getMongoDatabase" -> database;
+                    case "getExceptionTranslator" -> translator;
+                    case "getCodecRegistry" -> CODECS;
+                    case "isTransactionActive" -> false;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    static MongoDatabase database() {
+        return (MongoDatabase) Proxy.newProxyInstance(InMemoryMongo.class.getClassLoader(),
+                new Class<?>[]{MongoDatabase.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getCollection" -> collection();
+                    case "getCodecRegistry" -> CODECS;
+                    case "getName" -> "bench";
+                    case "withCodecRegistry", "withWriteConcern", "withReadPreference", "withReadConcern" -> proxy;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> MongoCollection<T> collection() {
+        return (MongoCollection<T>) Proxy.newProxyInstance(InMemoryMongo.class.getClassLoader(),
+                new Class<?>[]{MongoCollection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "bulkWrite" -> bulkWrite((List<? extends WriteModel<?>>) args[args[0] instanceof List ? 0 : 1]);
+                    case "getCodecRegistry" -> CODECS;
+                    case "withDocumentClass", "withCodecRegistry", "withWriteConcern",
+                         "withReadPreference", "withReadConcern" -> proxy;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    private static BulkWriteResult bulkWrite(List<? extends WriteModel<?>> models) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        for (WriteModel<?> model : models) {
+            Object document = model instanceof InsertOneModel<?> insert
+                    ? insert.getDocument()
+                    : ((ReplaceOneModel<?>) model).getReplacement();
+            encode(buffer, document);
+        }
+        bytesWritten += buffer.getSize();
+        return BulkWriteResult.unacknowledged();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void encode(BasicOutputBuffer buffer, T document) {
+        CODECS.get((Class<T>) document.getClass())
+                .encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+    }
+}
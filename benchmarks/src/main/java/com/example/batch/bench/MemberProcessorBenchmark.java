@@ -0,0 +1,62 @@
+package com.example.batch.bench;
+
+import com.example.batch.model.Activity;
+import com.example.batch.model.Member;
+import com.example.batch.processor.MemberProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MemberProcessorBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+
+    private MemberProcessor processor;
+
+    private Member activeMember;
+
+    private Member lapsedMember;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = PipelineContext.create(Map.of());
+        processor = context.getBean(MemberProcessor.class);
+        activeMember = Fixtures.member("64b7f0c2a1b2c3d4e5f60718", "active");
+        lapsedMember = Fixtures.member("64b7f0c2a1b2c3d4e5f60719", "lapsed");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Activity> processActive() {
+        return processor.process(activeMember);
+    }
+
+    @Benchmark
+    public List<Activity> processFiltered() {
+        return processor.process(lapsedMember);
+    }
+}
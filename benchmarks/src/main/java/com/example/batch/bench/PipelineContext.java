@@ -0,0 +1,38 @@
+package com.example.batch.bench;
+
+import com.example.batch.fingerprint.MemberChangeDetector;
+import com.example.batch.metrics.BatchMetrics;
+import com.example.batch.processor.ActivityRules;
+import com.example.batch.processor.MemberFilter;
+import com.example.batch.processor.MemberProcessor;
+import com.example.batch.writer.ActivityBulkWriter;
+import com.example.batch.writer.WriteRateGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Map;
+
+/**
+ * Wires the pipeline components the same way the application does, but
+ * against {@link InMemoryMongo} and a simple meter registry.
+ */
+final class PipelineContext {
+
+    private PipelineContext() {
+    }
+
+    static AnnotationConfigApplicationContext create(Map<String, Object> properties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("bench", properties));
+        context.getBeanFactory().setConversionService(new DefaultConversionService());
+        context.registerBean("mongoTemplate", MongoTemplate.class, InMemoryMongo::template);
+        context.registerBean(SimpleMeterRegistry.class);
+        context.register(BatchMetrics.class, MemberChangeDetector.class, MemberFilter.class, ActivityRules.class,
+                MemberProcessor.class, WriteRateGovernor.class, ActivityBulkWriter.class);
+        context.refresh();
+        return context;
+    }
+}
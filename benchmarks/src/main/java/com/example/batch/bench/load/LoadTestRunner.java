@@ -0,0 +1,127 @@
+package com.example.batch.bench.load;
+
+import com.example.batch.MemberActivityBatchApplication;
+import com.example.batch.metrics.BatchMetrics;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.bson.Document;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end throughput run: seeds a local {@code mongod} with synthetic
+ * members, runs {@code memberActivityJob} once and prints items/sec, chunk
+ * write latency percentiles, peak heap and server op counts.
+ * <p>
+ * Configured with system properties: {@code load.uri}, {@code load.members},
+ * {@code load.activeRatio}, {@code load.policyActiveRatio},
+ * {@code load.documentBytes}, {@code load.seedThreads}, {@code load.seed}
+ * and {@code load.skipSeed}. Any other {@code batch.*} system property is
+ * passed through to the application, e.g. {@code -Dbatch.member.partition.enabled=true}.
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String uri = System.getProperty("load.uri", "mongodb://localhost:27017/loadtest");
+        long memberCount = Long.getLong("load.members", 1_000_000);
+
+        try (MongoClient client = MongoClients.create(uri)) {
+            MongoDatabase database = client.getDatabase(uri.substring(uri.lastIndexOf('/') + 1));
+            if (!Boolean.getBoolean("load.skipSeed")) {
+                database.getCollection("members").drop();
+                database.getCollection("activities").drop();
+                long start = System.nanoTime();
+                new MemberDataGenerator(database.getCollection("members"),
+                        Double.parseDouble(System.getProperty("load.activeRatio", "0.8")),
+                        Double.parseDouble(System.getProperty("load.policyActiveRatio", "0.7")),
+                        Integer.getInteger("load.documentBytes", 256),
+                        Integer.getInteger("load.seedBatchSize", 10_000),
+                        Integer.getInteger("load.seedThreads", Runtime.getRuntime().availableProcessors()),
+                        Long.getLong("load.seed", 42))
+                        .seed(memberCount);
+                System.out.printf("seeded %,d members in %,d ms%n", memberCount,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MemberActivityBatchApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(
+                            "spring.data.mongodb.uri=" + uri,
+                            "batch.scheduler.enabled=false",
+                            "management.metrics.distribution.percentiles.batch.writer.write=0.5,0.99")
+                    .run(args)) {
+                run(context, database);
+            }
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context, MongoDatabase database) throws Exception {
+        Document before = opCounters(database);
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        JobExecution execution = context.getBean("jobLauncher", JobLauncher.class).run(
+                context.getBean("memberActivityJob", Job.class),
+                new JobParametersBuilder().addLong("loadTestRun", System.currentTimeMillis()).toJobParameters());
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long read = 0;
+        long written = 0;
+        // the partition manager step repeats its workers' counts
+        for (StepExecution step : BatchMetrics.workerSteps(execution)) {
+            read += step.getReadCount();
+            written += step.getWriteCount();
+        }
+        System.out.printf("status %s in %.1f s%n", execution.getStatus(), seconds);
+        System.out.printf("read %,d (%,.0f items/s), written %,d (%,.0f items/s)%n",
+                read, read / seconds, written, written / seconds);
+
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        for (Timer timer : registry.find("batch.writer.write").timers()) {
+            StringBuilder line = new StringBuilder("chunk write [" + timer.getId().getTag("partition") + "]");
+            for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                line.append(String.format(" p%.0f=%.1f ms", percentile.percentile() * 100,
+                        percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            System.out.println(line.append(" over ").append(timer.count()).append(" chunks"));
+        }
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf("peak heap %,d MB%n", peakHeap / (1024 * 1024));
+
+        Document after = opCounters(database);
+        StringBuilder ops = new StringBuilder("mongo ops");
+        for (String op : after.keySet()) {
+            ops.append(' ').append(op).append('=')
+                    .append(((Number) after.get(op)).longValue() - ((Number) before.get(op)).longValue());
+        }
+        System.out.println(ops);
+    }
+
+    private static Document opCounters(MongoDatabase database) {
+        return database.runCommand(new Document("serverStatus", 1)).get("opcounters", Document.class);
+    }
+}
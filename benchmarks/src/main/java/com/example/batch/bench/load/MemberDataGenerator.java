@@ -0,0 +1,106 @@
+package com.example.batch.bench.load;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeds {@code members} with synthetic documents using parallel, unordered
+ * {@code insertMany} batches. Each worker thread owns its own slice and
+ * random stream, so a given seed and thread count always produce the same
+ * data set. Ids and {@code updatedAt} are derived from the member's index
+ * and a fixed base time rather than the clock.
+ */
+public class MemberDataGenerator {
+
+    private static final Instant BASE_TIME = Instant.parse("2024-01-01T00:00:00Z");
+
+    /** How far before {@link #BASE_TIME} a member's {@code updatedAt} may fall. */
+    private static final long UPDATED_SPREAD_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    private final MongoCollection<Document> members;
+
+    private final double activeRatio;
+
+    private final double policyActiveRatio;
+
+    private final int paddingBytes;
+
+    private final int batchSize;
+
+    private final int threads;
+
+    private final long seed;
+
+    public MemberDataGenerator(MongoCollection<Document> members, double activeRatio, double policyActiveRatio,
+                               int documentBytes, int batchSize, int threads, long seed) {
+        this.members = members;
+        this.activeRatio = activeRatio;
+        this.policyActiveRatio = policyActiveRatio;
+        // _id, name, status, policyStatus and updatedAt take roughly 100 bytes on their own
+        this.paddingBytes = Math.max(0, documentBytes - 100);
+        this.batchSize = batchSize;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    public void seed(long count) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> slices = new ArrayList<>(threads);
+            long perThread = (count + threads - 1) / threads;
+            for (int t = 0; t < threads; t++) {
+                long from = t * perThread;
+                long to = Math.min(count, from + perThread);
+                SplittableRandom random = new SplittableRandom(seed + t);
+                slices.add(executor.submit(() -> insertSlice(from, to, random)));
+            }
+            for (Future<?> slice : slices) {
+                slice.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void insertSlice(long from, long to, SplittableRandom random) {
+        String padding = "x".repeat(paddingBytes);
+        List<Document> batch = new ArrayList<>(batchSize);
+        InsertManyOptions unordered = new InsertManyOptions().ordered(false);
+        for (long i = from; i < to; i++) {
+            batch.add(new Document("_id", objectId(i))
+                    .append("name", "Member " + i)
+                    .append("status", random.nextDouble() < activeRatio ? "active" : "inactive")
+                    .append("policyStatus", random.nextDouble() < policyActiveRatio ? "active" : "lapsed")
+                    .append("updatedAt", new Date(BASE_TIME.toEpochMilli() - random.nextLong(UPDATED_SPREAD_MILLIS)))
+                    .append("padding", padding));
+            if (batch.size() == batchSize) {
+                members.insertMany(batch, unordered);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            members.insertMany(batch, unordered);
+        }
+    }
+
+    /** Unique and ascending with the member's index; its timestamp advances a second every thousand members. */
+    private static ObjectId objectId(long index) {
+        return new ObjectId(ByteBuffer.allocate(12)
+                .putInt((int) (BASE_TIME.getEpochSecond() + index / 1000))
+                .putLong(index)
+                .array());
+    }
+}
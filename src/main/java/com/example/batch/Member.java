@@ -3,8 +3,11 @@ package com.example.batch.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 @Data
 @Document(collection = "members")
 public class Member {
@@ -13,4 +16,8 @@ public class Member {
     private String name;
     private String status;
     private String policyStatus;
+    private Instant updatedAt;
+    private String policyId;
+    @Transient
+    private Policy policy;
 }
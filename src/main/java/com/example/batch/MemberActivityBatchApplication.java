@@ -2,10 +2,14 @@ package com.example.batch;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class MemberActivityBatchApplication {
     public static void main(String[] args) {
-        SpringApplication.run(MemberActivityBatchApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(MemberActivityBatchApplication.class, args);
+        if (context.getEnvironment().getProperty("batch.run-once.enabled", Boolean.class, false)) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 }
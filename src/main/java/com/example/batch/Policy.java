@@ -0,0 +1,17 @@
+package com.example.batch.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Document(collection = "policies")
+public class Policy {
+    @Id
+    private String id;
+    private String name;
+    private String status;
+    private Instant renewalDate;
+}
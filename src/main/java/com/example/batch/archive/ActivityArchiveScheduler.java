@@ -0,0 +1,31 @@
+package com.example.batch.archive;
+
+import com.example.batch.launch.SingleFlightJobLauncher;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "batch.archive.enabled", havingValue = "true")
+public class ActivityArchiveScheduler {
+
+    @Autowired
+    private SingleFlightJobLauncher jobLauncher;
+
+    @Autowired
+    @Qualifier("activityArchiveJob")
+    private Job activityArchiveJob;
+
+    @Scheduled(cron = "${batch.archive.cron:0 0 3 * * *}")
+    public void runArchive() throws Exception {
+        jobLauncher.launch(activityArchiveJob, new JobParametersBuilder()
+                .addLong("time", System.currentTimeMillis())
+                .toJobParameters());
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.batch.archive;
+
+import com.example.batch.metrics.BatchMetrics;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves activities older than the retention window out of Mongo into
+ * gzip-compressed NDJSON files. Each call writes one file of at most
+ * {@code batch.archive.max-records} documents from a fresh cursor. It
+ * fsyncs the file and renames it into place, and only then deletes the
+ * archived documents by {@code _id}. A finished file is never overwritten;
+ * if a restart finds its file name taken, it moves on to the next sequence.
+ * <p>
+ * Archived documents are gone once the call returns, so the next call's
+ * cursor starts where this one stopped. Memory is bounded by one file's
+ * ids and throughput does not depend on the archive's size.
+ */
+@Component
+@StepScope
+public class ActivityArchiveTasklet implements Tasklet {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityArchiveTasklet.class);
+
+    public static final String CUTOFF_KEY = "activityArchive.cutoff";
+
+    public static final String FILE_SEQUENCE_KEY = "activityArchive.fileSequence";
+
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private BatchMetrics metrics;
+
+    @Value("${batch.archive.directory:archive}")
+    private String directory;
+
+    @Value("${batch.archive.retention-days:90}")
+    private long retentionDays;
+
+    @Value("${batch.archive.max-records:100000}")
+    private int maxRecords;
+
+    @Value("${batch.archive.cursor-batch-size:1000}")
+    private int cursorBatchSize;
+
+    @Value("${batch.archive.delete-batch-size:1000}")
+    private int deleteBatchSize;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ExecutionContext context = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        if (!context.containsKey(CUTOFF_KEY)) {
+            // fixed for the execution (and its restarts) so files never overlap
+            context.putLong(CUTOFF_KEY, Instant.now().minus(Duration.ofDays(retentionDays)).toEpochMilli());
+        }
+        long cutoff = context.getLong(CUTOFF_KEY);
+        int sequence = context.getInt(FILE_SEQUENCE_KEY, 0);
+        Path target = archiveFile(cutoff, sequence);
+        while (Files.exists(target)) {
+            // left by an attempt that died before its sequence was saved; its documents may already be deleted
+            target = archiveFile(cutoff, ++sequence);
+        }
+
+        Timer.Sample sample = Timer.start(metrics.registry());
+        MongoCollection<Document> activities = mongoTemplate.getCollection("activities");
+        List<Object> ids = new ArrayList<>(Math.min(maxRecords, 1 << 16));
+        try (MongoCursor<Document> cursor = activities.find(Filters.lt("timestamp", new Date(cutoff)))
+                .batchSize(cursorBatchSize)
+                .limit(maxRecords)
+                .iterator()) {
+            if (!cursor.hasNext()) {
+                return RepeatStatus.FINISHED;
+            }
+            write(target, cursor, ids);
+        }
+
+        for (int from = 0; from < ids.size(); from += deleteBatchSize) {
+            // an activity upserted since it was read has a newer timestamp and stays
+            activities.deleteMany(Filters.and(
+                    Filters.in("_id", ids.subList(from, Math.min(from + deleteBatchSize, ids.size()))),
+                    Filters.lt("timestamp", new Date(cutoff))));
+        }
+        context.putInt(FILE_SEQUENCE_KEY, sequence + 1);
+        contribution.incrementWriteCount(ids.size());
+        metrics.counter("batch.archive.documents").increment(ids.size());
+        sample.stop(metrics.timer("batch.archive.file"));
+        log.info("Archived {} activities to {}", ids.size(), target);
+        return ids.size() < maxRecords ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+    }
+
+    private Path archiveFile(long cutoff, int sequence) {
+        return Paths.get(directory, String.format("activities-%d-%05d.ndjson.gz", cutoff, sequence));
+    }
+
+    private void write(Path target, MongoCursor<Document> cursor, List<Object> ids) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        try (FileChannel channel = FileChannel.open(part,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            GZIPOutputStream gzip = new GZIPOutputStream(out, 1 << 16);
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 1 << 16);
+            while (cursor.hasNext()) {
+                Document activity = cursor.next();
+                ids.add(activity.get("_id"));
+                writer.write(activity.toJson(JSON));
+                writer.newLine();
+            }
+            writer.flush();
+            gzip.finish();
+            channel.force(true);
+        }
+        Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel dir = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // directories can't be opened for sync on every platform; the file itself is already durable
+        }
+    }
+}
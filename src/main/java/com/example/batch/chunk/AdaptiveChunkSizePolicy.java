@@ -0,0 +1,102 @@
+package com.example.batch.chunk;
+
+import com.example.batch.model.Activity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Completion policy that sizes chunks from measured write latency. After
+ * each write the size grows by half while latency stays under
+ * {@code batch.member.chunk.target-write-ms}, and halves once it goes over,
+ * always staying within the configured min/max bounds.
+ * <p>
+ * The size used for the last chunk is stored as {@link #CHUNK_SIZE_KEY}
+ * in the step execution context, exported as the {@code batch.chunk.size}
+ * gauge, and changes are logged.
+ */
+@Component
+public class AdaptiveChunkSizePolicy extends CompletionPolicySupport
+        implements ItemWriteListener<List<Activity>>, ChunkListener {
+
+    public static final String CHUNK_SIZE_KEY = "adaptiveChunkSize";
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveChunkSizePolicy.class);
+
+    private final AtomicInteger chunkSize;
+
+    private final ThreadLocal<Long> writeStart = new ThreadLocal<>();
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final long targetWriteNanos;
+
+    public AdaptiveChunkSizePolicy(@Value("${batch.member.chunk.initial-size:100}") int initialSize,
+                                   @Value("${batch.member.chunk.min-size:10}") int minSize,
+                                   @Value("${batch.member.chunk.max-size:5000}") int maxSize,
+                                   @Value("${batch.member.chunk.target-write-ms:200}") long targetWriteMs,
+                                   MeterRegistry registry) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetWriteNanos = targetWriteMs * 1_000_000;
+        this.chunkSize = new AtomicInteger(Math.max(minSize, Math.min(maxSize, initialSize)));
+        Gauge.builder("batch.chunk.size", chunkSize, AtomicInteger::get).register(registry);
+    }
+
+    public int getChunkSize() {
+        return chunkSize.get();
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return context.getStartedCount() >= chunkSize.get();
+    }
+
+    @Override
+    public void beforeWrite(Chunk<? extends List<Activity>> items) {
+        writeStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void afterWrite(Chunk<? extends List<Activity>> items) {
+        Long start = writeStart.get();
+        writeStart.remove();
+        if (start != null) {
+            adjust(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void onWriteError(Exception exception, Chunk<? extends List<Activity>> items) {
+        writeStart.remove();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        context.getStepContext().getStepExecution().getExecutionContext().putInt(CHUNK_SIZE_KEY, chunkSize.get());
+    }
+
+    private void adjust(long writeNanos) {
+        int current = chunkSize.get();
+        int next = writeNanos > targetWriteNanos
+                ? Math.max(minSize, current / 2)
+                : Math.min(maxSize, current + Math.max(1, current / 2));
+        if (next != current && chunkSize.compareAndSet(current, next)) {
+            log.debug("Chunk size {} -> {} after a {} ms write", current, next, writeNanos / 1_000_000);
+        }
+    }
+}
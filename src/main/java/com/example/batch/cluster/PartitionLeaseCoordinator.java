@@ -0,0 +1,314 @@
+package com.example.batch.cluster;
+
+import com.example.batch.config.MemberReader;
+import com.example.batch.partition.MemberIdRangePartitioner;
+import com.example.batch.reactive.ReactiveMemberPipeline;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Spreads a run of {@code memberActivityJob} over every node in the
+ * cluster. The first node to reach a run interval splits {@code members}
+ * into {@code _id} ranges and stores them as lease documents in
+ * {@code batchPartitionLeases}. Every node then claims pending or expired
+ * leases with an atomic {@code findAndModify} and processes each range
+ * through {@code memberPartitionJob}.
+ * <p>
+ * While a range runs, its owner renews the lease every third of the lease
+ * duration and records the last committed member id. If a node dies, its
+ * lease expires and another node picks the range up from that checkpoint.
+ * A node that loses its lease stops its step at the next chunk boundary.
+ * <p>
+ * Run and lease documents expire {@code batch.cluster.retention-hours}
+ * after their run was planned, through TTL indexes on {@code createdAt}.
+ */
+@Component
+@ConditionalOnProperty(name = "batch.cluster.enabled", havingValue = "true")
+public class PartitionLeaseCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionLeaseCoordinator.class);
+
+    private static final String LEASES = "batchPartitionLeases";
+
+    private static final String RUNS = "batchClusterRuns";
+
+    private static final String PENDING = "PENDING";
+
+    private static final String CLAIMED = "CLAIMED";
+
+    private static final String DONE = "DONE";
+
+    private static final String FAILED = "FAILED";
+
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final TaskExecutorJobLauncher launcher = new TaskExecutorJobLauncher();
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("member-cluster-"));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MemberIdRangePartitioner partitioner;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private ReactiveMemberPipeline reactivePipeline;
+
+    @Autowired
+    @Qualifier("memberPartitionJob")
+    private Job memberPartitionJob;
+
+    @Value("${batch.cluster.grid-size:32}")
+    private int gridSize;
+
+    @Value("${batch.cluster.concurrency:2}")
+    private int concurrency;
+
+    @Value("${batch.cluster.lease-seconds:30}")
+    private long leaseSeconds;
+
+    @Value("${batch.cluster.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${batch.cluster.run-interval-ms:900000}")
+    private long runIntervalMs;
+
+    @Value("${batch.cluster.retention-hours:168}")
+    private long retentionHours;
+
+    @PostConstruct
+    public void init() throws Exception {
+        launcher.setJobRepository(jobRepository);
+        launcher.setTaskExecutor(new SimpleAsyncTaskExecutor("member-lease-"));
+        launcher.afterPropertiesSet();
+        mongoTemplate.indexOps(LEASES).ensureIndex(new Index()
+                .on("status", Sort.Direction.ASC).on("leaseUntil", Sort.Direction.ASC).named("status_leaseUntil"));
+        // a run document that expired within its own interval would let another node plan it again
+        if (TimeUnit.HOURS.toMillis(retentionHours) <= runIntervalMs) {
+            throw new IllegalStateException("batch.cluster.retention-hours must cover more than one run interval");
+        }
+        for (String collection : List.of(RUNS, LEASES)) {
+            mongoTemplate.indexOps(collection).ensureIndex(new Index()
+                    .on("createdAt", Sort.Direction.ASC).expire(retentionHours, TimeUnit.HOURS).named("createdAt_ttl"));
+        }
+    }
+
+    /**
+     * Starts {@link #run} on the coordinator's own thread, so callers such
+     * as the scheduler are not held up while leases are worked.
+     */
+    public void trigger() {
+        if (!running.get()) {
+            runner.execute(() -> {
+                try {
+                    run();
+                } catch (Exception e) {
+                    log.error("Cluster run failed", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Plans the current interval's run if no node has yet, then works leases
+     * until none are pending or held by a live node. Returns straight away
+     * if this node is already working or its reactive pipeline is running.
+     */
+    public void run() throws Exception {
+        if (reactivePipeline.isRunning()) {
+            log.info("Reactive member pipeline is running, skipping this cluster run");
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            plan("memberActivity-" + System.currentTimeMillis() / runIntervalMs);
+            List<Future<?>> results = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                results.add(workers.submit(() -> {
+                    work();
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            workers.shutdown();
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void plan(String runId) {
+        try {
+            mongoTemplate.insert(new Document("_id", runId).append("plannedBy", nodeId).append("createdAt", new Date()), RUNS);
+        } catch (DuplicateKeyException e) {
+            return;
+        }
+        Date createdAt = new Date();
+        List<Document> leases = new ArrayList<>();
+        for (Map.Entry<String, ExecutionContext> partition : partitioner.partition(gridSize).entrySet()) {
+            ExecutionContext range = partition.getValue();
+            leases.add(new Document("_id", runId + ":" + partition.getKey())
+                    .append("runId", runId)
+                    .append("minId", range.getString(MemberIdRangePartitioner.MIN_ID_KEY, null))
+                    .append("maxId", range.getString(MemberIdRangePartitioner.MAX_ID_KEY, null))
+                    .append("status", PENDING)
+                    .append("attempts", 0)
+                    .append("createdAt", createdAt));
+        }
+        mongoTemplate.insert(leases, LEASES);
+        log.info("Planned run {} with {} partitions", runId, leases.size());
+    }
+
+    private void work() throws Exception {
+        while (true) {
+            Document lease = claim();
+            if (lease != null) {
+                execute(lease);
+            } else if (mongoTemplate.exists(Query.query(Criteria.where("status").is(CLAIMED)
+                    .and("leaseUntil").gt(new Date())), LEASES)) {
+                // another node is still working; wait in case its lease expires
+                Thread.sleep(leaseSeconds * 1000 / 3);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private Document claim() {
+        Date now = new Date();
+        Query claimable = Query.query(new Criteria().orOperator(
+                        Criteria.where("status").is(PENDING),
+                        Criteria.where("status").is(CLAIMED).and("leaseUntil").lt(now)))
+                .with(Sort.by("_id"));
+        return mongoTemplate.findAndModify(claimable,
+                new Update().set("status", CLAIMED)
+                        .set("owner", nodeId)
+                        .set("leaseUntil", leaseUntil())
+                        .inc("attempts", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                Document.class, LEASES);
+    }
+
+    private void execute(Document lease) throws Exception {
+        String checkpoint = lease.getString("lastId");
+        String minId = checkpoint != null ? checkpoint : lease.getString("minId");
+        String maxId = lease.getString("maxId");
+        JobParametersBuilder parameters = new JobParametersBuilder()
+                .addString("lease", lease.getString("_id"))
+                .addLong("attempt", lease.getInteger("attempts").longValue());
+        // the outer ranges are open-ended; a missing bound is open to the reader too
+        if (minId != null) {
+            parameters.addString(MemberIdRangePartitioner.MIN_ID_KEY, minId, false);
+        }
+        if (maxId != null) {
+            parameters.addString(MemberIdRangePartitioner.MAX_ID_KEY, maxId, false);
+        }
+        JobExecution execution = launcher.run(memberPartitionJob, parameters.toJobParameters());
+
+        boolean owned = true;
+        while (execution.isRunning()) {
+            Thread.sleep(leaseSeconds * 1000 / 3);
+            if (owned && !renew(lease, checkpoint(execution))) {
+                log.warn("Lost lease {}, stopping its step", lease.getString("_id"));
+                owned = false;
+                execution.getStepExecutions().forEach(StepExecution::setTerminateOnly);
+            }
+        }
+        if (!owned) {
+            return;
+        }
+
+        Update update = new Update().unset("owner").unset("leaseUntil");
+        String lastId = checkpoint(execution);
+        if (lastId != null) {
+            update.set("lastId", lastId);
+        }
+        if (execution.getStatus() == BatchStatus.COMPLETED) {
+            update.set("status", DONE);
+        } else {
+            update.set("status", lease.getInteger("attempts") >= maxAttempts ? FAILED : PENDING);
+            log.warn("Partition {} ended {} on attempt {}", lease.getString("_id"), execution.getStatus(),
+                    lease.getInteger("attempts"));
+        }
+        mongoTemplate.updateFirst(owned(lease), update, LEASES);
+    }
+
+    private boolean renew(Document lease, String lastId) {
+        Update update = new Update().set("leaseUntil", leaseUntil());
+        if (lastId != null) {
+            update.set("lastId", lastId);
+        }
+        return mongoTemplate.findAndModify(owned(lease), update, Document.class, LEASES) != null;
+    }
+
+    private Query owned(Document lease) {
+        return Query.query(Criteria.where("_id").is(lease.getString("_id")).and("owner").is(nodeId));
+    }
+
+    private Date leaseUntil() {
+        return new Date(System.currentTimeMillis() + leaseSeconds * 1000);
+    }
+
+    private static String checkpoint(JobExecution execution) {
+        for (StepExecution step : execution.getStepExecutions()) {
+            String lastId = step.getExecutionContext().getString(MemberReader.LAST_ID_KEY, null);
+            if (lastId != null) {
+                return lastId;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.batch.codec;
+
+import com.example.batch.model.Activity;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.time.Instant;
+
+/**
+ * Hand-written codec for {@link Activity}, used instead of the reflective
+ * {@code MappingMongoConverter} when {@code batch.mapping.codecs.enabled} is set.
+ */
+public class ActivityCodec implements Codec<Activity> {
+
+    @Override
+    public Activity decode(BsonReader reader, DecoderContext decoderContext) {
+        String memberId = null;
+        String action = null;
+        Instant timestamp = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> memberId = BsonIds.read(reader);
+                case "action" -> action = BsonIds.readNullableString(reader);
+                case "timestamp" -> {
+                    if (reader.getCurrentBsonType() == BsonType.NULL) {
+                        reader.readNull();
+                    } else {
+                        timestamp = Instant.ofEpochMilli(reader.readDateTime());
+                    }
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return new Activity(memberId, action, timestamp);
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Activity activity, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (activity.getMemberId() != null) {
+            BsonIds.write(writer, activity.getMemberId());
+        }
+        BsonIds.writeNullableString(writer, "action", activity.getAction());
+        if (activity.getTimestamp() != null) {
+            writer.writeDateTime("timestamp", activity.getTimestamp().toEpochMilli());
+        }
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<Activity> getEncoderClass() {
+        return Activity.class;
+    }
+}
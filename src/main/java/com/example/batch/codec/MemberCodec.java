@@ -0,0 +1,64 @@
+package com.example.batch.codec;
+
+import com.example.batch.model.Member;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.time.Instant;
+
+/**
+ * Hand-written codec for {@link Member}, used instead of the reflective
+ * {@code MappingMongoConverter} when {@code batch.mapping.codecs.enabled} is set.
+ */
+public class MemberCodec implements Codec<Member> {
+
+    @Override
+    public Member decode(BsonReader reader, DecoderContext decoderContext) {
+        Member member = new Member();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> member.setId(BsonIds.read(reader));
+                case "name" -> member.setName(BsonIds.readNullableString(reader));
+                case "status" -> member.setStatus(BsonIds.readNullableString(reader));
+                case "policyStatus" -> member.setPolicyStatus(BsonIds.readNullableString(reader));
+                case "policyId" -> member.setPolicyId(BsonIds.readNullableString(reader));
+                case "updatedAt" -> {
+                    if (reader.getCurrentBsonType() == BsonType.NULL) {
+                        reader.readNull();
+                    } else {
+                        member.setUpdatedAt(Instant.ofEpochMilli(reader.readDateTime()));
+                    }
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return member;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Member member, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (member.getId() != null) {
+            BsonIds.write(writer, member.getId());
+        }
+        BsonIds.writeNullableString(writer, "name", member.getName());
+        BsonIds.writeNullableString(writer, "status", member.getStatus());
+        BsonIds.writeNullableString(writer, "policyStatus", member.getPolicyStatus());
+        BsonIds.writeNullableString(writer, "policyId", member.getPolicyId());
+        if (member.getUpdatedAt() != null) {
+            writer.writeDateTime("updatedAt", member.getUpdatedAt().toEpochMilli());
+        }
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<Member> getEncoderClass() {
+        return Member.class;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.batch.config;
+
+import com.example.batch.writer.ActivityBulkWriter;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.mongodb.client.model.TimeSeriesOptions;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the {@code activities} collection before the first job can run.
+ * In {@code TIME_SERIES} storage it is a time-series collection on
+ * {@code timestamp} with {@code memberId} as the meta field, the configured
+ * granularity and, when {@code batch.activity.timeseries.ttl-seconds} is
+ * positive, automatic expiry. With archival enabled in {@code DOCUMENT}
+ * storage, {@code timestamp} is indexed so each archive pass finds old
+ * activities without scanning the collection.
+ * <p>
+ * Startup fails if an existing collection's type doesn't match the
+ * configured storage. Several instances may start at once, so losing the
+ * race to create the collection is not an error.
+ */
+@Configuration
+public class ActivityCollectionConfig {
+
+    private static final int NAMESPACE_EXISTS = 48;
+
+    private static final String COLLECTION = "activities";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${batch.activity.storage:DOCUMENT}")
+    private ActivityBulkWriter.Storage storage;
+
+    @Value("${batch.activity.timeseries.granularity:HOURS}")
+    private TimeSeriesGranularity granularity;
+
+    @Value("${batch.activity.timeseries.ttl-seconds:0}")
+    private long ttlSeconds;
+
+    @Value("${batch.archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    @PostConstruct
+    public void init() {
+        createActivities();
+        if (archiveEnabled && storage == ActivityBulkWriter.Storage.DOCUMENT) {
+            mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index()
+                    .on("timestamp", Sort.Direction.ASC)
+                    .named("timestamp"));
+        }
+    }
+
+    private void createActivities() {
+        Document existing = existingActivities();
+        if (existing != null) {
+            requireType(existing);
+            return;
+        }
+        CreateCollectionOptions options = new CreateCollectionOptions();
+        if (storage == ActivityBulkWriter.Storage.TIME_SERIES) {
+            options.timeSeriesOptions(new TimeSeriesOptions("timestamp")
+                    .metaField("memberId")
+                    .granularity(granularity));
+            if (ttlSeconds > 0) {
+                options.expireAfter(ttlSeconds, TimeUnit.SECONDS);
+            }
+        }
+        try {
+            mongoTemplate.getDb().createCollection(COLLECTION, options);
+        } catch (MongoCommandException e) {
+            if (e.getErrorCode() != NAMESPACE_EXISTS) {
+                throw e;
+            }
+            // another instance created it between our check and create
+            requireType(existingActivities());
+        }
+    }
+
+    private Document existingActivities() {
+        return mongoTemplate.getDb().listCollections()
+                .filter(Filters.eq("name", COLLECTION))
+                .first();
+    }
+
+    /** The writer builds its models for the configured storage, so a mismatched collection can't be written. */
+    private void requireType(Document existing) {
+        boolean timeSeries = storage == ActivityBulkWriter.Storage.TIME_SERIES;
+        if (timeSeries != "timeseries".equals(existing.getString("type"))) {
+            throw new IllegalStateException("Collection " + COLLECTION + " already exists as type "
+                    + existing.getString("type") + ", which does not match storage " + storage
+                    + "; drop or rename it to switch");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.batch.config;
+
+import com.example.batch.archive.ActivityArchiveTasklet;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@ConditionalOnProperty(name = "batch.archive.enabled", havingValue = "true")
+public class ArchiveConfig {
+
+    @Bean
+    public Job activityArchiveJob(JobRepository jobRepository, Step activityArchiveStep) {
+        return new JobBuilder("activityArchiveJob", jobRepository)
+                .incrementer(new RunIdIncrementer())
+                .start(activityArchiveStep)
+                .build();
+    }
+
+    /** One tasklet iteration per archive file, so each file commits its own checkpoint. */
+    @Bean
+    public Step activityArchiveStep(JobRepository jobRepository, PlatformTransactionManager transactionManager,
+                                    ActivityArchiveTasklet activityArchiveTasklet) {
+        return new StepBuilder("activityArchiveStep", jobRepository)
+                .tasklet(activityArchiveTasklet, transactionManager)
+                .build();
+    }
+}
@@ -1,52 +1,110 @@
 package com.example.batch.config;
 
+import com.example.batch.chunk.AdaptiveChunkSizePolicy;
+import com.example.batch.fingerprint.MemberChangeDetector;
+import com.example.batch.incremental.HighWaterMarkListener;
 import com.example.batch.model.Activity;
 import com.example.batch.model.Member;
-import com.example.batch.processor.MemberProcessor;
+import com.example.batch.partition.MemberIdRangePartitioner;
+import com.example.batch.writer.ActivityListWriter;
+import com.example.batch.writer.PipelinedActivityWriter;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
-import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
-import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
-import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.data.MongoItemWriter;
-import org.springframework.batch.item.support.builder.MongoItemWriterBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.Future;
 
 @Configuration
-@EnableBatchProcessing
 public class BatchConfig {
 
+    @Value("${batch.member.partition.enabled:false}")
+    private boolean partitioned;
+
+    @Value("${batch.member.partition.grid-size:8}")
+    private int gridSize;
+
+    @Value("${batch.member.partition.threads:8}")
+    private int partitionThreads;
+
+    @Value("${batch.member.pipeline.enabled:false}")
+    private boolean pipelined;
+
     @Bean
-    public Job memberActivityJob(JobBuilderFactory jobs, Step step) {
-        return jobs.get("memberActivityJob")
+    public Job memberActivityJob(JobRepository jobRepository,
+                                 Step memberStep,
+                                 Step memberPartitionStep,
+                                 HighWaterMarkListener highWaterMarkListener,
+                                 MemberChangeDetector memberChangeDetector) {
+        return new JobBuilder("memberActivityJob", jobRepository)
                 .incrementer(new RunIdIncrementer())
-                .flow(step)
-                .end()
+                .listener(highWaterMarkListener)
+                .listener(memberChangeDetector)
+                .start(partitioned ? memberPartitionStep : memberStep)
                 .build();
     }
 
     @Bean
-    public Step memberStep(StepBuilderFactory steps,
+    public Step memberStep(JobRepository jobRepository,
+                           PlatformTransactionManager transactionManager,
                            MemberReader reader,
-                           ItemProcessor<Member, Activity> processor,
-                           MongoItemWriter<Activity> writer) {
-        return steps.get("memberStep")
-                .<Member, Activity>chunk(10)
+                           ItemProcessor<Member, List<Activity>> processor,
+                           ActivityListWriter writer,
+                           AdaptiveChunkSizePolicy chunkSizePolicy,
+                           AsyncItemProcessor<Member, List<Activity>> asyncProcessor,
+                           PipelinedActivityWriter pipelinedWriter) {
+        if (pipelined) {
+            return new StepBuilder("memberStep", jobRepository)
+                    .<Member, Future<List<Activity>>>chunk(chunkSizePolicy, transactionManager)
+                    .reader(reader)
+                    .processor(asyncProcessor)
+                    .writer(pipelinedWriter)
+                    .listener((ChunkListener) chunkSizePolicy)
+                    .build();
+        }
+        return new StepBuilder("memberStep", jobRepository)
+                .<Member, List<Activity>>chunk(chunkSizePolicy, transactionManager)
                 .reader(reader)
                 .processor(processor)
                 .writer(writer)
+                .listener((ItemWriteListener<List<Activity>>) chunkSizePolicy)
+                .listener((ChunkListener) chunkSizePolicy)
                 .build();
     }
 
     @Bean
-    public MongoItemWriter<Activity> writer(MongoTemplate mongoTemplate) {
-        return new MongoItemWriterBuilder<Activity>()
-                .template(mongoTemplate)
-                .collection("activities")
+    public Step memberPartitionStep(JobRepository jobRepository,
+                                    Step memberStep,
+                                    MemberIdRangePartitioner partitioner,
+                                    TaskExecutor memberPartitionTaskExecutor) {
+        return new StepBuilder("memberPartitionStep", jobRepository)
+                .partitioner(memberStep.getName(), partitioner)
+                .step(memberStep)
+                .gridSize(gridSize)
+                .taskExecutor(memberPartitionTaskExecutor)
                 .build();
     }
+
+    @Bean
+    public TaskExecutor memberPartitionTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(partitionThreads);
+        executor.setMaxPoolSize(partitionThreads);
+        executor.setThreadNamePrefix("member-partition-");
+        executor.initialize();
+        return executor;
+    }
 }
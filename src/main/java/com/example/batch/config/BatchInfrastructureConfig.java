@@ -0,0 +1,114 @@
+package com.example.batch.config;
+
+import com.example.batch.repository.CoalescingJobRepository;
+import com.example.batch.writer.ActivityBulkWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.explore.support.MongoJobExplorerFactoryBean;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.MongoJobRepositoryFactoryBean;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Keeps Spring Batch metadata in Mongo next to the data. The beans here are
+ * declared before {@link EnableBatchProcessing} is processed, so it only
+ * adds the scopes and registry and does not look for a DataSource.
+ */
+@Configuration
+@EnableBatchProcessing
+public class BatchInfrastructureConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchInfrastructureConfig.class);
+
+    @Value("${batch.repository.coalesce.every-chunks:10}")
+    private int coalesceEveryChunks;
+
+    @Value("${batch.repository.coalesce.interval-ms:5000}")
+    private long coalesceIntervalMs;
+
+    @Value("${batch.activity.writer.mode:UPSERT}")
+    private ActivityBulkWriter.Mode writerMode;
+
+    @Value("${batch.activity.storage:DOCUMENT}")
+    private ActivityBulkWriter.Storage storage;
+
+    /** Chunk writes are bulk operations outside any transaction, so nothing needs a real one. */
+    @Bean
+    public PlatformTransactionManager transactionManager() {
+        return new ResourcelessTransactionManager();
+    }
+
+    @Bean
+    public JobRepository jobRepository(MongoTemplate mongoTemplate,
+                                       MappingMongoConverter mappingMongoConverter,
+                                       PlatformTransactionManager transactionManager) throws Exception {
+        // execution context keys such as memberReader.lastId contain dots
+        mappingMongoConverter.setMapKeyDotReplacement(".");
+        initializeMetadata(mongoTemplate);
+
+        MongoJobRepositoryFactoryBean factory = new MongoJobRepositoryFactoryBean();
+        factory.setMongoOperations(mongoTemplate);
+        factory.setTransactionManager(transactionManager);
+        factory.afterPropertiesSet();
+        if (writerMode != ActivityBulkWriter.Mode.UPSERT || storage != ActivityBulkWriter.Storage.DOCUMENT) {
+            // replaying chunks after a crash would fail on duplicate keys or duplicate history
+            log.info("Activity writes are not idempotent ({} / {}), writing step metadata on every chunk",
+                    writerMode, storage);
+            return factory.getObject();
+        }
+        return CoalescingJobRepository.wrap(factory.getObject(), coalesceEveryChunks, coalesceIntervalMs);
+    }
+
+    @Bean
+    public JobExplorer jobExplorer(MongoTemplate mongoTemplate,
+                                   PlatformTransactionManager transactionManager) throws Exception {
+        MongoJobExplorerFactoryBean factory = new MongoJobExplorerFactoryBean();
+        factory.setMongoOperations(mongoTemplate);
+        factory.setTransactionManager(transactionManager);
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+    @Bean
+    public JobLauncher jobLauncher(JobRepository jobRepository) throws Exception {
+        TaskExecutorJobLauncher jobLauncher = new TaskExecutorJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.setTaskExecutor(new SyncTaskExecutor());
+        jobLauncher.afterPropertiesSet();
+        return jobLauncher;
+    }
+
+    /** Sequences and lookup indexes the Mongo job repository expects to exist. */
+    private void initializeMetadata(MongoTemplate mongoTemplate) {
+        for (String sequence : new String[]{"BATCH_JOB_INSTANCE_SEQ", "BATCH_JOB_EXECUTION_SEQ", "BATCH_STEP_EXECUTION_SEQ"}) {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(sequence)),
+                    new Update().setOnInsert("count", 0L), "BATCH_SEQUENCES");
+        }
+        mongoTemplate.indexOps("BATCH_JOB_INSTANCE").ensureIndex(new Index()
+                .on("jobName", Sort.Direction.ASC).on("jobKey", Sort.Direction.ASC).named("job_name_key_idx"));
+        mongoTemplate.indexOps("BATCH_JOB_INSTANCE").ensureIndex(new Index()
+                .on("jobInstanceId", Sort.Direction.DESC).named("job_instance_idx"));
+        mongoTemplate.indexOps("BATCH_JOB_EXECUTION").ensureIndex(new Index()
+                .on("jobInstanceId", Sort.Direction.DESC).named("job_instance_idx"));
+        mongoTemplate.indexOps("BATCH_JOB_EXECUTION").ensureIndex(new Index()
+                .on("jobExecutionId", Sort.Direction.DESC).named("job_execution_idx"));
+        mongoTemplate.indexOps("BATCH_STEP_EXECUTION").ensureIndex(new Index()
+                .on("stepExecutionId", Sort.Direction.DESC).named("step_execution_idx"));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.batch.config;
+
+import com.example.batch.fingerprint.MemberChangeDetector;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "batch.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    /** Runs {@code memberStep} over one leased {@code _id} range, passed as the minId/maxId job parameters. */
+    @Bean
+    public Job memberPartitionJob(JobRepository jobRepository, Step memberStep,
+                                  MemberChangeDetector memberChangeDetector) {
+        return new JobBuilder("memberPartitionJob", jobRepository)
+                .listener(memberChangeDetector)
+                .start(memberStep)
+                .build();
+    }
+}
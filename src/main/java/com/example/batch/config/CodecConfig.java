@@ -0,0 +1,21 @@
+package com.example.batch.config;
+
+import com.example.batch.codec.ActivityCodec;
+import com.example.batch.codec.MemberCodec;
+import com.mongodb.MongoClientSettings;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CodecConfig {
+
+    /** Makes {@code Member}/{@code Activity} collections usable directly through the driver. */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer batchCodecsCustomizer() {
+        return builder -> builder.codecRegistry(CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(new MemberCodec(), new ActivityCodec()),
+                MongoClientSettings.getDefaultCodecRegistry()));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.batch.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+@Configuration
+public class IndexConfig {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Backs the reader's filtered, {@code _id}-ordered scan and its incremental
+     * {@code updatedAt} lookups. Creating an existing index is a no-op.
+     * Runs at startup, before any runner can launch a job.
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        mongoTemplate.indexOps("members").ensureIndex(new Index()
+                .on("status", Sort.Direction.ASC)
+                .on("policyStatus", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("status_policyStatus_id"));
+        mongoTemplate.indexOps("members").ensureIndex(new Index()
+                .on("status", Sort.Direction.ASC)
+                .on("policyStatus", Sort.Direction.ASC)
+                .on("updatedAt", Sort.Direction.ASC)
+                .named("status_policyStatus_updatedAt"));
+    }
+}
@@ -1,34 +1,252 @@
 package com.example.batch.config;
 
+import com.example.batch.enrichment.PolicyEnricher;
+import com.example.batch.incremental.HighWaterMarkListener;
+import com.example.batch.metrics.BatchMetrics;
 import com.example.batch.model.Member;
+import com.example.batch.partition.MemberIdRangePartitioner;
+import com.example.batch.processor.MemberFilter;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCursor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
 import org.bson.Document;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.item.ExecutionContext;
-import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
+/**
+ * Streams the members selected by {@link MemberFilter} from a server-side
+ * cursor in {@code _id} order, projected down to the fields the processor reads.
+ * The last {@code _id} handed out is saved on every commit, so a restarted
+ * job resumes after it instead of rescanning the collection.
+ * When run as a partition worker the scan is bounded to the partition's
+ * {@code _id} range (or the minId/maxId job parameters of a cluster lease),
+ * and on incremental runs to members updated since the
+ * last high-water mark.
+ * With enrichment enabled, members are pulled from the cursor in batches
+ * and their policies attached by {@link PolicyEnricher} before being handed out.
+ * Scans go to the members selected by {@code batch.member.reader.read-preference},
+ * so they can be kept off the primary.
+ */
 @Component
-public class MemberReader implements ItemReader<Member> {
+@StepScope
+public class MemberReader implements ItemStreamReader<Member> {
+
+    public static final String LAST_ID_KEY = "memberReader.lastId";
 
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    @Autowired
+    private MemberFilter memberFilter;
+
+    @Autowired
+    private BatchMetrics metrics;
+
+    @Autowired
+    private PolicyEnricher policyEnricher;
+
+    @Value("${batch.member.enrichment.enabled:false}")
+    private boolean enrichmentEnabled;
+
+    @Value("${batch.member.enrichment.batch-size:500}")
+    private int enrichmentBatchSize;
+
+    @Value("${batch.member.reader.batch-size:500}")
+    private int batchSize;
+
+    @Value("${batch.mapping.codecs.enabled:false}")
+    private boolean codecsEnabled;
+
+    @Value("${batch.member.reader.read-preference:primary}")
+    private String readPreferenceName;
+
+    @Value("${batch.member.reader.max-staleness-seconds:0}")
+    private long maxStalenessSeconds;
+
+    @Value("#{jobExecutionContext['" + HighWaterMarkListener.SINCE_KEY + "']}")
+    private Long updatedSince;
+
+    @Value("#{jobParameters['" + MemberIdRangePartitioner.MIN_ID_KEY + "']}")
+    private String jobMinId;
+
+    @Value("#{jobParameters['" + MemberIdRangePartitioner.MAX_ID_KEY + "']}")
+    private String jobMaxId;
+
+    private Runnable closeCursor;
+
     private Iterator<Member> memberIterator;
 
+    private Iterator<Member> enrichedBatch = Collections.emptyIterator();
+
+    private String lastId;
+
+    private boolean exhausted;
+
+    private Timer readTimer;
+
+    private Counter readCounter;
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        exhausted = false;
+        readTimer = metrics.timer("batch.reader.read");
+        readCounter = metrics.counter("batch.reader.items");
+        lastId = executionContext.getString(LAST_ID_KEY, null);
+        String lowerId = lastId != null ? lastId : executionContext.getString(MemberIdRangePartitioner.MIN_ID_KEY, jobMinId);
+        String maxId = executionContext.getString(MemberIdRangePartitioner.MAX_ID_KEY, jobMaxId);
+
+        Criteria criteria = memberFilter.criteria();
+        if (lowerId != null || maxId != null) {
+            Criteria idCriteria = criteria.and("id");
+            if (lowerId != null) {
+                idCriteria.gt(lowerId);
+            }
+            if (maxId != null) {
+                idCriteria.lte(maxId);
+            }
+        }
+        if (updatedSince != null) {
+            criteria.and("updatedAt").gte(new Date(updatedSince));
+        }
+
+        if (codecsEnabled) {
+            openCodecCursor(criteria);
+        } else {
+            openMappedStream(criteria);
+        }
+    }
+
+    private void openMappedStream(Criteria criteria) {
+        TypedAggregation<Member> aggregation = Aggregation.newAggregation(Member.class,
+                Aggregation.match(criteria),
+                Aggregation.sort(Sort.Direction.ASC, "id"),
+                Aggregation.project(MemberFilter.PROJECTED_FIELDS))
+                .withOptions(AggregationOptions.builder().cursorBatchSize(batchSize).build());
+
+        MongoTemplate template = mongoTemplate;
+        ReadPreference readPreference = readPreference();
+        if (!readPreference.equals(ReadPreference.primary())) {
+            template = new MongoTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter());
+            template.setReadPreference(readPreference);
+        }
+        Stream<Member> stream = template.aggregateStream(aggregation, "members", Member.class);
+        memberIterator = stream.iterator();
+        closeCursor = stream::close;
+    }
+
+    /** Runs the same pipeline straight on the driver, decoding with {@code MemberCodec}. */
+    private void openCodecCursor(Criteria criteria) {
+        Document match = new QueryMapper(mongoTemplate.getConverter()).getMappedObject(
+                criteria.getCriteriaObject(),
+                mongoTemplate.getConverter().getMappingContext().getPersistentEntity(Member.class));
+        Document projection = new Document();
+        for (String field : MemberFilter.PROJECTED_FIELDS) {
+            if (!field.equals("id")) {
+                projection.append(field, 1);
+            }
+        }
+
+        MongoCursor<Member> cursor = mongoTemplate.getCollection("members")
+                .withReadPreference(readPreference())
+                .aggregate(List.of(
+                        new Document("$match", match),
+                        new Document("$sort", new Document("_id", 1)),
+                        new Document("$project", projection)), Member.class)
+                .batchSize(batchSize)
+                .cursor();
+        memberIterator = cursor;
+        closeCursor = cursor::close;
+    }
+
+    private ReadPreference readPreference() {
+        return readPreference(readPreferenceName, maxStalenessSeconds);
+    }
+
+    /**
+     * The read preference for member scans, shared with the reactive
+     * pipeline; a non-positive {@code maxStalenessSeconds} sets no limit.
+     */
+    public static ReadPreference readPreference(String name, long maxStalenessSeconds) {
+        if (maxStalenessSeconds > 0) {
+            return ReadPreference.valueOf(name, List.of(), maxStalenessSeconds, TimeUnit.SECONDS);
+        }
+        return ReadPreference.valueOf(name);
+    }
+
     @Override
     public Member read() {
         if (memberIterator == null) {
-            List<Member> members = mongoTemplate.aggregate(
-                List.of(new Document("$match", new Document("status", "active"))),
-                "members",
-                Member.class
-            ).getMappedResults();
-            memberIterator = members.iterator();
-        }
-        return memberIterator.hasNext() ? memberIterator.next() : null;
+            exhausted = true;
+            return null;
+        }
+        long start = System.nanoTime();
+        Member member = enrichmentEnabled ? nextEnriched() : memberIterator.hasNext() ? memberIterator.next() : null;
+        readTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (member != null) {
+            lastId = member.getId();
+            readCounter.increment();
+        } else {
+            exhausted = true;
+        }
+        return member;
+    }
+
+    private Member nextEnriched() {
+        if (!enrichedBatch.hasNext()) {
+            List<Member> batch = new ArrayList<>(enrichmentBatchSize);
+            while (batch.size() < enrichmentBatchSize && memberIterator.hasNext()) {
+                batch.add(memberIterator.next());
+            }
+            policyEnricher.enrich(batch);
+            enrichedBatch = batch.iterator();
+        }
+        return enrichedBatch.hasNext() ? enrichedBatch.next() : null;
+    }
+
+    /** Id of the last member returned by {@link #read()}. */
+    public String getLastId() {
+        return lastId;
+    }
+
+    /** Whether {@link #read()} has reached the end of the cursor. */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        if (lastId != null) {
+            executionContext.putString(LAST_ID_KEY, lastId);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closeCursor != null) {
+            closeCursor.run();
+        }
+        closeCursor = null;
+        memberIterator = null;
+        enrichedBatch = Collections.emptyIterator();
     }
 }
@@ -0,0 +1,76 @@
+package com.example.batch.config;
+
+import com.example.batch.model.Activity;
+import com.example.batch.model.Member;
+import com.example.batch.processor.MemberProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executors for the pipelined variant of {@code memberStep}. Processing and
+ * writing run on virtual threads when the JVM supports them (Java 21+) and
+ * fall back to platform threads otherwise.
+ */
+@Configuration
+public class PipelineConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineConfig.class);
+
+    @Value("${batch.member.pipeline.virtual-threads:true}")
+    private boolean virtualThreads;
+
+    @Value("${batch.member.pipeline.platform-threads:8}")
+    private int platformThreads;
+
+    @Bean
+    public TaskExecutor memberProcessingExecutor() {
+        if (useVirtualThreads()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("member-process-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(platformThreads);
+        executor.setMaxPoolSize(platformThreads);
+        executor.setThreadNamePrefix("member-process-");
+        executor.initialize();
+        return executor;
+    }
+
+    /** Each pipelined writer runs its writes one at a time, in order, on a thread from this factory. */
+    @Bean
+    public ThreadFactory memberWriteThreadFactory() {
+        return useVirtualThreads()
+                ? new VirtualThreadTaskExecutor("member-write-").getVirtualThreadFactory()
+                : new CustomizableThreadFactory("member-write-");
+    }
+
+    @Bean
+    public AsyncItemProcessor<Member, List<Activity>> asyncMemberProcessor(MemberProcessor memberProcessor,
+                                                                          TaskExecutor memberProcessingExecutor) {
+        AsyncItemProcessor<Member, List<Activity>> processor = new AsyncItemProcessor<>();
+        processor.setDelegate(memberProcessor);
+        processor.setTaskExecutor(memberProcessingExecutor);
+        return processor;
+    }
+
+    private boolean useVirtualThreads() {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            log.warn("Virtual threads need Java 21+, using {} platform threads for the member pipeline", platformThreads);
+            return false;
+        }
+        return virtualThreads;
+    }
+}
@@ -1,25 +1,37 @@
 package com.example.batch.config;
 
+import com.example.batch.cluster.PartitionLeaseCoordinator;
+import com.example.batch.launch.SingleFlightJobLauncher;
 import org.springframework.batch.core.Job;
-import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 
 @Configuration
 @EnableScheduling
+@ConditionalOnExpression("${batch.scheduler.enabled:true} and !${batch.member.change-stream.enabled:false}")
 public class SchedulerConfig {
 
     @Autowired
-    private JobLauncher jobLauncher;
+    private SingleFlightJobLauncher jobLauncher;
+
+    @Autowired
+    private ObjectProvider<PartitionLeaseCoordinator> clusterCoordinator;
 
     @Autowired
     private Job memberActivityJob;
 
     @Scheduled(fixedRate = 900000) // 15 minutes
     public void runJob() throws Exception {
-        jobLauncher.run(memberActivityJob, new org.springframework.batch.core.JobParametersBuilder()
+        PartitionLeaseCoordinator coordinator = clusterCoordinator.getIfAvailable();
+        if (coordinator != null) {
+            coordinator.trigger();
+            return;
+        }
+        jobLauncher.launch(memberActivityJob, new org.springframework.batch.core.JobParametersBuilder()
                 .addLong("time", System.currentTimeMillis())
                 .toJobParameters());
     }
@@ -1,34 +1,115 @@
 package com.example.batch.controller;
 
+import com.example.batch.incremental.HighWaterMarkListener;
+import com.example.batch.launch.SingleFlightJobLauncher;
+import com.example.batch.metrics.BatchMetrics;
+import com.example.batch.reactive.ReactiveMemberPipeline;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
-import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/batch")
 public class BatchController {
 
     @Autowired
-    private JobLauncher jobLauncher;
+    private SingleFlightJobLauncher jobLauncher;
+
+    @Autowired
+    private JobExplorer jobExplorer;
 
     @Autowired
     private Job memberActivityJob;
 
+    @Autowired
+    private ReactiveMemberPipeline reactivePipeline;
+
     @GetMapping("/run")
-    public String runBatchJob() {
+    public ResponseEntity<Map<String, Object>> runBatchJob(@RequestParam(defaultValue = "false") boolean fullRescan) {
         try {
             JobParameters params = new JobParametersBuilder()
                     .addLong("manualRunTime", System.currentTimeMillis())
+                    .addString(HighWaterMarkListener.FULL_RESCAN_PARAM, String.valueOf(fullRescan))
                     .toJobParameters();
-            jobLauncher.run(memberActivityJob, params);
-            return "Batch job triggered successfully.";
+            SingleFlightJobLauncher.Launch launch = jobLauncher.launch(memberActivityJob, params);
+            Map<String, Object> body = summary(launch.execution());
+            body.put("joined", launch.joined());
+            return ResponseEntity.accepted().body(body);
+        } catch (JobExecutionAlreadyRunningException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
-            return "Failed to trigger batch job: " + e.getMessage();
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to trigger batch job: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Starts the reactive engine; it resumes from its last checkpoint unless
+     * {@code restart} is set. Conflicts while it or an activity job runs.
+     */
+    @GetMapping("/reactive/run")
+    public ResponseEntity<Map<String, Object>> runReactive(@RequestParam(defaultValue = "false") boolean restart) {
+        if (!reactivePipeline.start(restart)) {
+            Map<String, Object> body = reactivePipeline.status();
+            if (!reactivePipeline.isRunning()) {
+                body.put("error", "A job writing member activities is running");
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+        }
+        return ResponseEntity.accepted().body(reactivePipeline.status());
+    }
+
+    @GetMapping("/reactive/status")
+    public ResponseEntity<Map<String, Object>> reactiveStatus() {
+        return ResponseEntity.ok(reactivePipeline.status());
+    }
+
+    @GetMapping("/executions/{id}")
+    public ResponseEntity<Map<String, Object>> getExecution(@PathVariable long id) {
+        JobExecution execution = jobExplorer.getJobExecution(id);
+        if (execution == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(summary(execution));
+    }
+
+    private Map<String, Object> summary(JobExecution execution) {
+        long read = 0;
+        long filtered = 0;
+        long written = 0;
+        long skipped = 0;
+        for (StepExecution step : BatchMetrics.workerSteps(execution)) {
+            read += step.getReadCount();
+            filtered += step.getFilterCount();
+            written += step.getWriteCount();
+            skipped += step.getSkipCount();
         }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("executionId", execution.getId());
+        body.put("jobName", execution.getJobInstance().getJobName());
+        body.put("status", execution.getStatus());
+        body.put("exitCode", execution.getExitStatus().getExitCode());
+        body.put("startTime", execution.getStartTime());
+        body.put("endTime", execution.getEndTime());
+        body.put("readCount", read);
+        body.put("filterCount", filtered);
+        body.put("writeCount", written);
+        body.put("skipCount", skipped);
+        return body;
     }
 }
@@ -0,0 +1,76 @@
+package com.example.batch.enrichment;
+
+import com.example.batch.model.Member;
+import com.example.batch.model.Policy;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Attaches each member's {@link Policy} a batch at a time. Policy ids that
+ * are not cached are resolved together with one {@code $in} query, and
+ * results, including ids with no policy, are kept in a size-bounded cache
+ * with a TTL. Cache hits, misses and evictions are exported as
+ * {@code cache.*} metrics tagged {@code cache=policies}.
+ */
+@Component
+public class PolicyEnricher {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Cache<String, Optional<Policy>> cache;
+
+    public PolicyEnricher(MongoTemplate mongoTemplate,
+                          MeterRegistry registry,
+                          @Value("${batch.member.enrichment.cache.max-size:100000}") long maxSize,
+                          @Value("${batch.member.enrichment.cache.ttl-seconds:900}") long ttlSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "policies");
+    }
+
+    public void enrich(List<Member> members) {
+        Set<String> policyIds = new HashSet<>();
+        for (Member member : members) {
+            if (member.getPolicyId() != null) {
+                policyIds.add(member.getPolicyId());
+            }
+        }
+        Map<String, Optional<Policy>> policies = cache.getAll(policyIds, this::loadAll);
+        for (Member member : members) {
+            if (member.getPolicyId() != null) {
+                member.setPolicy(policies.get(member.getPolicyId()).orElse(null));
+            }
+        }
+    }
+
+    /** One {@code $in} query for every id the cache is missing; ids with no policy map to empty. */
+    private Map<String, Optional<Policy>> loadAll(Set<? extends String> policyIds) {
+        Map<String, Optional<Policy>> loaded = new HashMap<>(policyIds.size() * 2);
+        for (String policyId : policyIds) {
+            loaded.put(policyId, Optional.empty());
+        }
+        for (Policy policy : mongoTemplate.find(Query.query(Criteria.where("id").in(policyIds)), Policy.class)) {
+            loaded.put(policy.getId(), Optional.of(policy));
+        }
+        return loaded;
+    }
+}
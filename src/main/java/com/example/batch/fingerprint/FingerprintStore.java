@@ -0,0 +1,179 @@
+package com.example.batch.fingerprint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Open-addressing {@code long -> long} hash map stored in a memory-mapped
+ * file. Nothing is boxed and nothing lives on the Java heap, so it holds
+ * tens of millions of entries without GC pressure, and the file can be
+ * reopened by the next run as is.
+ * <p>
+ * Layout: a 32 byte header (magic, capacity, size) followed by
+ * {@code capacity} slots of key and value, probed linearly. Key 0 marks an
+ * empty slot, so a 0 key is stored as 1. The table doubles into a new file
+ * once it is 70% full. Large tables are mapped in 1 GiB segments.
+ */
+public final class FingerprintStore implements Closeable {
+
+    private static final long MAGIC = 0x4650_5354_4f52_4531L;
+
+    private static final int HEADER_BYTES = 32;
+
+    private static final int SLOT_BYTES = 16;
+
+    private static final int SEGMENT_SHIFT = 26;
+
+    private static final long SEGMENT_SLOTS = 1L << SEGMENT_SHIFT;
+
+    private final Path path;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer header;
+
+    private MappedByteBuffer[] segments;
+
+    private long capacity;
+
+    private long mask;
+
+    private long size;
+
+    private FingerprintStore(Path path) {
+        this.path = path;
+    }
+
+    public static FingerprintStore open(Path path, long initialCapacity) throws IOException {
+        FingerprintStore store = new FingerprintStore(path);
+        store.map(initialCapacity);
+        return store;
+    }
+
+    /** Returns the value stored for {@code key}, or 0 if there is none. */
+    public synchronized long get(long key) {
+        long slot = find(normalize(key));
+        return slot < 0 ? 0 : value(slot);
+    }
+
+    public synchronized void put(long key, long value) throws IOException {
+        key = normalize(key);
+        long slot = find(key);
+        if (slot >= 0) {
+            setValue(slot, value);
+            return;
+        }
+        if ((size + 1) * 10 > capacity * 7) {
+            grow();
+        }
+        insert(key, value);
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized void force() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void map(long requestedCapacity) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        if (channel.size() > HEADER_BYTES && header.getLong(0) == MAGIC) {
+            capacity = header.getLong(8);
+            size = header.getLong(16);
+        } else {
+            capacity = Long.highestOneBit(Math.max(1024, requestedCapacity - 1)) << 1;
+            size = 0;
+            header.putLong(0, MAGIC);
+            header.putLong(8, capacity);
+            header.putLong(16, size);
+        }
+        mask = capacity - 1;
+        int segmentCount = (int) ((capacity + SEGMENT_SLOTS - 1) >>> SEGMENT_SHIFT);
+        segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long slots = Math.min(SEGMENT_SLOTS, capacity - i * SEGMENT_SLOTS);
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + i * SEGMENT_SLOTS * SLOT_BYTES, slots * SLOT_BYTES);
+        }
+    }
+
+    private long find(long key) {
+        for (long slot = key & mask; ; slot = (slot + 1) & mask) {
+            long existing = key(slot);
+            if (existing == key) {
+                return slot;
+            }
+            if (existing == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private void insert(long key, long value) {
+        long slot = key & mask;
+        while (key(slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        segment(slot).putLong(offset(slot), key);
+        setValue(slot, value);
+        header.putLong(16, ++size);
+    }
+
+    private void grow() throws IOException {
+        Path grown = path.resolveSibling(path.getFileName() + ".grow");
+        Files.deleteIfExists(grown);
+        try (FingerprintStore target = FingerprintStore.open(grown, capacity * 2)) {
+            for (long slot = 0; slot < capacity; slot++) {
+                long key = key(slot);
+                if (key != 0) {
+                    target.insert(key, value(slot));
+                }
+            }
+        }
+        channel.close();
+        Files.move(grown, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map(capacity * 2);
+    }
+
+    private long key(long slot) {
+        return segment(slot).getLong(offset(slot));
+    }
+
+    private long value(long slot) {
+        return segment(slot).getLong(offset(slot) + 8);
+    }
+
+    private void setValue(long slot, long value) {
+        segment(slot).putLong(offset(slot) + 8, value);
+    }
+
+    private MappedByteBuffer segment(long slot) {
+        return segments[(int) (slot >>> SEGMENT_SHIFT)];
+    }
+
+    private static int offset(long slot) {
+        return (int) ((slot & (SEGMENT_SLOTS - 1)) * SLOT_BYTES);
+    }
+
+    private static long normalize(long key) {
+        return key == 0 ? 1 : key;
+    }
+}
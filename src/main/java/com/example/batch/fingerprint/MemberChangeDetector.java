@@ -0,0 +1,149 @@
+package com.example.batch.fingerprint;
+
+import com.example.batch.model.Activity;
+import com.example.batch.model.Member;
+import com.example.batch.model.Policy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Suppresses activities for members whose relevant fields have not changed
+ * since the last activity written for them. Each member is reduced to a
+ * 64-bit fingerprint of policyStatus, policyId and, when enriched, the
+ * policy's status and renewal date. The fingerprint is compared with the
+ * one stored under a 64-bit hash of the member id in a {@link FingerprintStore}.
+ * <p>
+ * A new fingerprint is only stored once {@link #confirm} reports that the
+ * member's activity was written, so a failed write is emitted again on the
+ * next run. The store is flushed to disk after every job.
+ */
+@Component
+public class MemberChangeDetector implements JobExecutionListener {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @Value("${batch.member.fingerprint.enabled:false}")
+    private boolean enabled;
+
+    @Value("${batch.member.fingerprint.path:member-fingerprints.bin}")
+    private Path path;
+
+    @Value("${batch.member.fingerprint.initial-capacity:16777216}")
+    private long initialCapacity;
+
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    private FingerprintStore store;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (enabled) {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            store = FingerprintStore.open(path, initialCapacity);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** The member's new fingerprint, or 0 when it matches the stored one. */
+    public long changedFingerprint(Member member) {
+        long fingerprint = fingerprint(member);
+        return store.get(key(member.getId())) == fingerprint ? 0 : fingerprint;
+    }
+
+    /** Holds a fingerprint for a member whose activities are about to be written, until {@link #confirm}. */
+    public void expect(String memberId, long fingerprint) {
+        pending.put(memberId, fingerprint);
+    }
+
+    public void confirm(List<? extends Activity> written) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (Activity activity : written) {
+                Long fingerprint = pending.remove(activity.getMemberId());
+                if (fingerprint != null) {
+                    store.put(key(activity.getMemberId()), fingerprint);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        flush();
+    }
+
+    /** Drops unconfirmed fingerprints and forces the store to disk; called at the end of every run. */
+    public void flush() {
+        if (enabled) {
+            pending.clear();
+            store.force();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    static long key(String memberId) {
+        return mix(hash(FNV_OFFSET, memberId));
+    }
+
+    static long fingerprint(Member member) {
+        long hash = hash(FNV_OFFSET, member.getPolicyStatus());
+        hash = hash(hash, member.getPolicyId());
+        Policy policy = member.getPolicy();
+        if (policy != null) {
+            hash = hash(hash, policy.getStatus());
+            hash = hash(hash, policy.getRenewalDate() != null ? policy.getRenewalDate().toString() : null);
+        }
+        long fingerprint = mix(hash);
+        // 0 means "no fingerprint" in the store
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    /** FNV-1a over the chars of {@code value}, followed by a separator so field boundaries count. */
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return (hash ^ (value == null ? 0xff : 0xfe)) * FNV_PRIME;
+    }
+
+    /** MurmurHash3 finalizer, spreads FNV output across all 64 bits. */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe1a85ec3L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
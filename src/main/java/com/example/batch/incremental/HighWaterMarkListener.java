@@ -0,0 +1,72 @@
+package com.example.batch.incremental;
+
+import org.bson.Document;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Keeps a per-job high-water mark on {@code updatedAt} so incremental runs
+ * only read members modified since the last successful run.
+ * <p>
+ * Before the job starts, the stored mark is exposed to the reader as
+ * {@link #SINCE_KEY} in the job execution context, unless the run was
+ * launched with {@code fullRescan=true}. When the job completes, the start
+ * time of the run becomes the new mark, so changes made while it was
+ * running are picked up again next time. A restarted run keeps the start
+ * time and mark of its first execution.
+ */
+@Component
+public class HighWaterMarkListener implements JobExecutionListener {
+
+    public static final String SINCE_KEY = "memberUpdatedSince";
+
+    public static final String FULL_RESCAN_PARAM = "fullRescan";
+
+    private static final String RUN_STARTED_KEY = "runStartedAt";
+
+    private static final String COLLECTION = "batchHighWaterMarks";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${batch.member.incremental.enabled:false}")
+    private boolean incremental;
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        if (jobExecution.getExecutionContext().containsKey(RUN_STARTED_KEY)) {
+            // a restart: keep the original start and mark, or ranges checkpointed before the failure lose updates
+            return;
+        }
+        jobExecution.getExecutionContext().putLong(RUN_STARTED_KEY, System.currentTimeMillis());
+        if (!incremental || "true".equalsIgnoreCase(jobExecution.getJobParameters().getString(FULL_RESCAN_PARAM))) {
+            return;
+        }
+        Document mark = mongoTemplate.findById(jobExecution.getJobInstance().getJobName(), Document.class, COLLECTION);
+        if (mark != null) {
+            jobExecution.getExecutionContext().putLong(SINCE_KEY, mark.getDate("value").getTime());
+        }
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        if (jobExecution.getStatus() != BatchStatus.COMPLETED) {
+            return;
+        }
+        Date runStartedAt = new Date(jobExecution.getExecutionContext().getLong(RUN_STARTED_KEY));
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("_id").is(jobExecution.getJobInstance().getJobName())),
+                Update.update("value", runStartedAt),
+                COLLECTION);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.batch.launch;
+
+import com.example.batch.incremental.HighWaterMarkListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * Runs {@code memberActivityJob} once on the calling thread after the
+ * context has started and turns its status into the process exit code:
+ * 0 when it completed, 1 otherwise. Used by the {@code run-once} profile,
+ * which also turns off the web server and the scheduler.
+ */
+@Component
+@ConditionalOnProperty(name = "batch.run-once.enabled", havingValue = "true")
+public class RunOnceJobRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(RunOnceJobRunner.class);
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private Job memberActivityJob;
+
+    private int exitCode = 1;
+
+    @EventListener
+    public void onStarted(ApplicationStartedEvent event) {
+        log.info("Context started in {} ms, JVM up {} ms", event.getTimeTaken().toMillis(),
+                ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        JobParametersBuilder parameters = new JobParametersBuilder().addLong("time", System.currentTimeMillis());
+        if (args.containsOption(HighWaterMarkListener.FULL_RESCAN_PARAM)) {
+            parameters.addString(HighWaterMarkListener.FULL_RESCAN_PARAM, "true");
+        }
+        JobExecution execution = jobLauncher.run(memberActivityJob, parameters.toJobParameters());
+        exitCode = execution.getStatus() == BatchStatus.COMPLETED ? 0 : 1;
+        log.info("{} finished {} in {} ms, JVM up {} ms", memberActivityJob.getName(), execution.getStatus(),
+                Duration.between(execution.getStartTime(), execution.getEndTime()).toMillis(),
+                ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
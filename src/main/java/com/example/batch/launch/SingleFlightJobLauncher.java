@@ -0,0 +1,144 @@
+package com.example.batch.launch;
+
+import com.example.batch.reactive.ReactiveMemberPipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Launches jobs in the background and allows at most one running execution
+ * per job. When a job is already running, a new trigger either joins that
+ * execution or is rejected, depending on {@code batch.launch.on-conflict}.
+ * <p>
+ * An execution that the repository still shows as running, but whose job
+ * and steps have not been updated for {@code batch.launch.stale-after-ms},
+ * is taken to be orphaned by a crashed JVM. It is marked FAILED instead
+ * of being joined, so the job can run again.
+ * <p>
+ * The {@link #ACTIVITY_JOBS} and the {@link ReactiveMemberPipeline} write
+ * the same activities, so neither starts while the other runs: launches are
+ * rejected while the pipeline runs, and the pipeline starts through
+ * {@link #startUnlessRunning}.
+ */
+@Component
+public class SingleFlightJobLauncher implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleFlightJobLauncher.class);
+
+    public enum OnConflict { JOIN, REJECT }
+
+    /** Jobs that write member activities, so must not overlap the reactive pipeline. */
+    public static final Set<String> ACTIVITY_JOBS = Set.of("memberActivityJob", "memberPartitionJob");
+
+    /** The execution a trigger ended up with, and whether it was already running. */
+    public record Launch(JobExecution execution, boolean joined) {
+    }
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private ObjectProvider<ReactiveMemberPipeline> reactivePipeline;
+
+    @Value("${batch.launch.on-conflict:JOIN}")
+    private OnConflict onConflict;
+
+    @Value("${batch.launch.stale-after-ms:1800000}")
+    private long staleAfterMs;
+
+    private final TaskExecutorJobLauncher launcher = new TaskExecutorJobLauncher();
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        launcher.setJobRepository(jobRepository);
+        launcher.setTaskExecutor(new SimpleAsyncTaskExecutor("job-launch-"));
+        launcher.afterPropertiesSet();
+    }
+
+    public synchronized Launch launch(Job job, JobParameters parameters) throws Exception {
+        if (ACTIVITY_JOBS.contains(job.getName()) && reactivePipeline.getObject().isRunning()) {
+            throw new JobExecutionAlreadyRunningException("The reactive member pipeline is running; "
+                    + job.getName() + " would write the same activities");
+        }
+        Set<JobExecution> running = running(job.getName());
+        if (!running.isEmpty()) {
+            if (onConflict == OnConflict.REJECT) {
+                throw new JobExecutionAlreadyRunningException("Job " + job.getName() + " is already running");
+            }
+            return new Launch(running.iterator().next(), true);
+        }
+        return new Launch(launcher.run(job, parameters), false);
+    }
+
+    /**
+     * Calls {@code start} unless one of {@code jobNames} is running, under
+     * the launch lock so no launch can slip in between. False if one is.
+     */
+    public synchronized boolean startUnlessRunning(Set<String> jobNames, BooleanSupplier start) {
+        for (String jobName : jobNames) {
+            if (!running(jobName).isEmpty()) {
+                return false;
+            }
+        }
+        return start.getAsBoolean();
+    }
+
+    private Set<JobExecution> running(String jobName) {
+        Set<JobExecution> running = new HashSet<>(jobExplorer.findRunningJobExecutions(jobName));
+        running.removeIf(this::failIfStale);
+        return running;
+    }
+
+    private boolean failIfStale(JobExecution execution) {
+        LocalDateTime lastActivity = execution.getLastUpdated() != null ? execution.getLastUpdated() : execution.getCreateTime();
+        for (StepExecution step : execution.getStepExecutions()) {
+            if (step.getLastUpdated() != null && step.getLastUpdated().isAfter(lastActivity)) {
+                lastActivity = step.getLastUpdated();
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (lastActivity.plus(Duration.ofMillis(staleAfterMs)).isAfter(now)) {
+            return false;
+        }
+        log.warn("Execution {} of {} has not been updated since {}, marking it FAILED as orphaned",
+                execution.getId(), execution.getJobInstance().getJobName(), lastActivity);
+        ExitStatus orphaned = ExitStatus.FAILED.addExitDescription("Orphaned: no update since " + lastActivity);
+        for (StepExecution step : execution.getStepExecutions()) {
+            if (step.getStatus().isRunning()) {
+                step.setStatus(BatchStatus.FAILED);
+                step.setExitStatus(orphaned);
+                step.setEndTime(now);
+                jobRepository.update(step);
+            }
+        }
+        execution.setStatus(BatchStatus.FAILED);
+        execution.setExitStatus(orphaned);
+        execution.setEndTime(now);
+        jobRepository.update(execution);
+        return true;
+    }
+}
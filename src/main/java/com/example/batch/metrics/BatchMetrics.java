@@ -0,0 +1,100 @@
+package com.example.batch.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the batch pipeline, tagged with the job, step and partition
+ * of the step running on the calling thread. Partition worker steps are
+ * named {@code <step>:<partition>}; outside a step all three tags are
+ * {@code none}.
+ */
+@Component
+public class BatchMetrics {
+
+    private static final String NONE = "none";
+
+    private record StepMeter(String job, String step, String name) {
+    }
+
+    private final Map<StepMeter, Object> stepMeters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MeterRegistry registry;
+
+    public Timer timer(String name, String... tags) {
+        return Timer.builder(name)
+                .tags(stepTags().and(tags))
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public Counter counter(String name, String... tags) {
+        return registry.counter(name, stepTags().and(tags));
+    }
+
+    public DistributionSummary summary(String name, String... tags) {
+        return registry.summary(name, stepTags().and(tags));
+    }
+
+    /**
+     * Meters for per-item hot paths, created by {@code factory} once per job,
+     * step (partition included) and {@code name}. Later calls skip building
+     * tags and the registry lookup.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T perStep(String name, Supplier<T> factory) {
+        StepContext context = StepSynchronizationManager.getContext();
+        StepMeter key = context == null
+                ? new StepMeter(NONE, NONE, name)
+                : new StepMeter(context.getJobName(), context.getStepName(), name);
+        return (T) stepMeters.computeIfAbsent(key, k -> factory.get());
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * The steps of an execution that did the reading and writing. In a
+     * partitioned run these are the {@code <step>:<partition>} workers only,
+     * because the manager step already holds their aggregated counts.
+     */
+    public static List<StepExecution> workerSteps(JobExecution execution) {
+        List<StepExecution> workers = new ArrayList<>();
+        for (StepExecution step : execution.getStepExecutions()) {
+            if (step.getStepName().indexOf(':') >= 0) {
+                workers.add(step);
+            }
+        }
+        return workers.isEmpty() ? new ArrayList<>(execution.getStepExecutions()) : workers;
+    }
+
+    public static Tags stepTags() {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context == null) {
+            return Tags.of("job", NONE, "step", NONE, "partition", NONE);
+        }
+        String stepName = context.getStepName();
+        int separator = stepName.indexOf(':');
+        return Tags.of(
+                "job", context.getJobName(),
+                "step", separator < 0 ? stepName : stepName.substring(0, separator),
+                "partition", separator < 0 ? NONE : stepName.substring(separator + 1));
+    }
+}
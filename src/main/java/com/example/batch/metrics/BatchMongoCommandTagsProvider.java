@@ -0,0 +1,21 @@
+package com.example.batch.metrics;
+
+import com.mongodb.event.CommandEvent;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.mongodb.DefaultMongoCommandTagsProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the batch job, step and partition to the driver command metrics
+ * that Actuator records through its Mongo {@code CommandListener}. The sync
+ * driver reports commands on the calling thread, so the step context is
+ * the one that issued the round trip.
+ */
+@Component
+public class BatchMongoCommandTagsProvider extends DefaultMongoCommandTagsProvider {
+
+    @Override
+    public Iterable<Tag> commandTags(CommandEvent event) {
+        return BatchMetrics.stepTags().and(super.commandTags(event));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.batch.partition;
+
+import com.example.batch.model.Member;
+import com.example.batch.processor.MemberFilter;
+import org.bson.Document;
+import org.springframework.batch.core.partition.support.PartitionNameProvider;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the members selected by {@link MemberFilter} into contiguous
+ * {@code _id} ranges of roughly equal size by sampling the collection and
+ * taking evenly spaced boundaries.
+ * Each partition gets an exclusive {@link #MIN_ID_KEY} and an inclusive
+ * {@link #MAX_ID_KEY}; the first and last ranges are open-ended. There are
+ * always exactly {@code gridSize} partitions, named by
+ * {@link #getPartitionNames}; when the sample has too few distinct ids the
+ * remaining partitions get empty ranges.
+ */
+@Component
+public class MemberIdRangePartitioner implements Partitioner, PartitionNameProvider {
+
+    public static final String MIN_ID_KEY = "minId";
+
+    public static final String MAX_ID_KEY = "maxId";
+
+    /** Bounds a range that matches nothing: no id is both above it and at most it. */
+    private static final String EMPTY_BOUND = "";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MemberFilter memberFilter;
+
+    @Value("${batch.member.partition.samples-per-partition:100}")
+    private int samplesPerPartition;
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        List<Document> samples = mongoTemplate.aggregate(
+                Aggregation.newAggregation(Member.class,
+                        Aggregation.match(memberFilter.criteria()),
+                        Aggregation.sample((long) gridSize * samplesPerPartition),
+                        Aggregation.sort(Sort.Direction.ASC, "id"),
+                        Aggregation.project("id")),
+                "members",
+                Document.class
+        ).getMappedResults();
+
+        List<String> names = getPartitionNames(gridSize);
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        String minId = null;
+        for (int i = 1; i < gridSize && !samples.isEmpty(); i++) {
+            String maxId = samples.get(i * samples.size() / gridSize).get("_id").toString();
+            if (maxId.equals(minId)) {
+                continue;
+            }
+            partitions.put(names.get(partitions.size()), range(minId, maxId));
+            minId = maxId;
+        }
+        partitions.put(names.get(partitions.size()), range(minId, null));
+        // too few distinct ids for the grid: pad with empty ranges so the names stay the same
+        while (partitions.size() < gridSize) {
+            partitions.put(names.get(partitions.size()), range(EMPTY_BOUND, EMPTY_BOUND));
+        }
+        return partitions;
+    }
+
+    /**
+     * Always {@code partition0} to {@code partition<gridSize-1>}, so a
+     * restart finds the worker steps of the failed run whatever the new
+     * sample looks like.
+     */
+    @Override
+    public List<String> getPartitionNames(int gridSize) {
+        List<String> names = new ArrayList<>(gridSize);
+        for (int i = 0; i < gridSize; i++) {
+            names.add("partition" + i);
+        }
+        return names;
+    }
+
+    private ExecutionContext range(String minId, String maxId) {
+        ExecutionContext context = new ExecutionContext();
+        if (minId != null) {
+            context.putString(MIN_ID_KEY, minId);
+        }
+        if (maxId != null) {
+            context.putString(MAX_ID_KEY, maxId);
+        }
+        return context;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.batch.processor;
+
+import com.example.batch.metrics.BatchMetrics;
+import com.example.batch.model.Activity;
+import com.example.batch.model.Member;
+import com.example.batch.model.Policy;
+import com.example.batch.writer.ActivityBulkWriter;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The rules that turn a {@link Member} into activities, bound from
+ * {@code batch.member.rules[n]} and compiled once at startup. Each rule
+ * ANDs together the conditions it sets, for example:
+ * <pre>
+ * batch.member.rules[0].name=renewal-due
+ * batch.member.rules[0].action=Renewal due
+ * batch.member.rules[0].renewal-within-days=30
+ * </pre>
+ * A member's facts (lower-cased statuses, renewal date) are extracted once
+ * and every rule is tested against them in configuration order, so adding
+ * a rule costs a few comparisons per member rather than another scan.
+ * Each rule that matches emits one activity and counts a hit in
+ * {@code batch.processor.rule.hits}.
+ * <p>
+ * Rules only see members admitted by {@link MemberFilter}; widen
+ * {@code batch.member.filter.policy-statuses} for rules on other statuses.
+ * Policy record statuses and renewal dates come from the enriched policy,
+ * so startup fails if a rule tests them while enrichment is disabled.
+ * Without configured rules, every admitted member gets a "Policy check".
+ * <p>
+ * {@code DOCUMENT} storage keeps one activity per member, so with it
+ * startup fails unless every pair of rules is mutually exclusive: disjoint
+ * policy statuses or policy record statuses, or opposite renewal
+ * conditions.
+ */
+@Component
+public class ActivityRules {
+
+    /**
+     * One configured rule. Unset conditions don't constrain; {@code action}
+     * defaults to the name.
+     */
+    public record Definition(String name,
+                             String action,
+                             List<String> policyStatuses,
+                             List<String> policyRecordStatuses,
+                             Integer renewalWithinDays,
+                             Boolean renewalOverdue) {
+    }
+
+    /** What the rules test, extracted from a member once. */
+    private record Facts(String policyStatus, String policyRecordStatus, Instant renewalDate, Instant now) {
+    }
+
+    private record CompiledRule(String name, String action, Predicate<Facts> condition) {
+    }
+
+    private static final Definition DEFAULT_RULE =
+            new Definition("policy-check", "Policy check", null, null, null, null);
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private BatchMetrics metrics;
+
+    @Value("${batch.activity.storage:DOCUMENT}")
+    private ActivityBulkWriter.Storage storage;
+
+    @Value("${batch.member.enrichment.enabled:false}")
+    private boolean enrichmentEnabled;
+
+    private List<CompiledRule> rules;
+
+    private boolean timeDependent;
+
+    @PostConstruct
+    public void compile() {
+        List<Definition> definitions = Binder.get(environment)
+                .bind("batch.member.rules", Bindable.listOf(Definition.class))
+                .orElse(List.of(DEFAULT_RULE));
+        if (storage == ActivityBulkWriter.Storage.DOCUMENT) {
+            requireExclusive(definitions);
+        }
+        if (!enrichmentEnabled) {
+            requireNoPolicyConditions(definitions);
+        }
+        List<CompiledRule> compiled = new ArrayList<>(definitions.size());
+        for (Definition definition : definitions) {
+            compiled.add(compile(definition));
+        }
+        rules = List.copyOf(compiled);
+        timeDependent = definitions.stream()
+                .anyMatch(definition -> definition.renewalWithinDays() != null || definition.renewalOverdue() != null);
+    }
+
+    /**
+     * Whether a rule depends on the current time, so an unchanged member can
+     * start or stop matching.
+     */
+    public boolean isTimeDependent() {
+        return timeDependent;
+    }
+
+    /** The activities {@code member} triggers, in rule order; empty when no rule matches. */
+    public List<Activity> evaluate(Member member) {
+        Instant now = Instant.now();
+        Policy policy = member.getPolicy();
+        Facts facts = new Facts(lower(member.getPolicyStatus()),
+                policy != null ? lower(policy.getStatus()) : null,
+                policy != null ? policy.getRenewalDate() : null,
+                now);
+        List<Activity> activities = null;
+        Counter[] hits = null;
+        for (int i = 0; i < rules.size(); i++) {
+            CompiledRule rule = rules.get(i);
+            if (rule.condition().test(facts)) {
+                if (activities == null) {
+                    activities = new ArrayList<>(2);
+                }
+                activities.add(new Activity(member.getId(), rule.action(), now));
+                if (hits == null) {
+                    hits = metrics.perStep("batch.processor.rule.hits", this::hitCounters);
+                }
+                hits[i].increment();
+            }
+        }
+        return activities != null ? activities : List.of();
+    }
+
+    private Counter[] hitCounters() {
+        Counter[] counters = new Counter[rules.size()];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = metrics.counter("batch.processor.rule.hits", "rule", rules.get(i).name());
+        }
+        return counters;
+    }
+
+    private static void requireExclusive(List<Definition> definitions) {
+        for (int i = 0; i < definitions.size(); i++) {
+            for (int j = i + 1; j < definitions.size(); j++) {
+                Definition a = definitions.get(i);
+                Definition b = definitions.get(j);
+                if (!exclusive(a, b)) {
+                    throw new IllegalStateException("Rules " + a.name() + " and " + b.name()
+                            + " can both fire for one member, but DOCUMENT storage keeps one activity per member;"
+                            + " make them exclusive or use batch.activity.storage=TIME_SERIES");
+                }
+            }
+        }
+    }
+
+    private static void requireNoPolicyConditions(List<Definition> definitions) {
+        for (Definition definition : definitions) {
+            if (definition.policyRecordStatuses() != null || definition.renewalWithinDays() != null
+                    || definition.renewalOverdue() != null) {
+                throw new IllegalStateException("Rule " + definition.name()
+                        + " tests the policy record, which is only loaded with batch.member.enrichment.enabled=true");
+            }
+        }
+    }
+
+    /** Whether no member can satisfy both rules. */
+    private static boolean exclusive(Definition a, Definition b) {
+        if (disjoint(a.policyStatuses(), b.policyStatuses())
+                || disjoint(a.policyRecordStatuses(), b.policyRecordStatuses())) {
+            return true;
+        }
+        if (a.renewalOverdue() != null && b.renewalOverdue() != null && !a.renewalOverdue().equals(b.renewalOverdue())) {
+            return true;
+        }
+        // due within a window means not yet overdue
+        return Boolean.TRUE.equals(a.renewalOverdue()) && b.renewalWithinDays() != null
+                || Boolean.TRUE.equals(b.renewalOverdue()) && a.renewalWithinDays() != null;
+    }
+
+    private static boolean disjoint(List<String> a, List<String> b) {
+        return a != null && b != null && Collections.disjoint(lowerAll(a), lowerAll(b));
+    }
+
+    private static CompiledRule compile(Definition definition) {
+        if (definition.name() == null || definition.name().isBlank()) {
+            throw new IllegalStateException("Every batch.member.rules entry needs a name");
+        }
+        Predicate<Facts> condition = facts -> true;
+        if (definition.policyStatuses() != null) {
+            Set<String> statuses = lowerAll(definition.policyStatuses());
+            condition = condition.and(facts -> facts.policyStatus() != null && statuses.contains(facts.policyStatus()));
+        }
+        if (definition.policyRecordStatuses() != null) {
+            Set<String> statuses = lowerAll(definition.policyRecordStatuses());
+            condition = condition.and(facts -> facts.policyRecordStatus() != null
+                    && statuses.contains(facts.policyRecordStatus()));
+        }
+        if (definition.renewalWithinDays() != null) {
+            Duration window = Duration.ofDays(definition.renewalWithinDays());
+            condition = condition.and(facts -> facts.renewalDate() != null
+                    && !facts.renewalDate().isBefore(facts.now())
+                    && !facts.renewalDate().isAfter(facts.now().plus(window)));
+        }
+        if (definition.renewalOverdue() != null) {
+            boolean overdue = definition.renewalOverdue();
+            condition = condition.and(facts -> facts.renewalDate() != null
+                    && facts.renewalDate().isBefore(facts.now()) == overdue);
+        }
+        String action = definition.action() != null ? definition.action() : definition.name();
+        return new CompiledRule(definition.name(), action, condition);
+    }
+
+    private static Set<String> lowerAll(List<String> values) {
+        return values.stream().map(ActivityRules::lower).collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.batch.processor;
+
+import com.example.batch.model.Member;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Single definition of which members produce activities. The same rule is
+ * compiled into the reader's {@code $match} so non-matching documents never
+ * leave the server, and checked again in {@link MemberProcessor}.
+ */
+@Component
+public class MemberFilter {
+
+    /** Fields the processor and enrichment read; everything else is projected away. */
+    public static final String[] PROJECTED_FIELDS = {"id", "policyStatus", "policyId"};
+
+    @Value("${batch.member.filter.status:active}")
+    private String status;
+
+    @Value("${batch.member.filter.policy-statuses:active,Active,ACTIVE}")
+    private List<String> policyStatuses;
+
+    public Criteria criteria() {
+        return Criteria.where("status").is(status).and("policyStatus").in(policyStatuses);
+    }
+
+    public boolean matches(Member member) {
+        String policyStatus = member.getPolicyStatus();
+        return policyStatus != null && policyStatuses.stream().anyMatch(policyStatus::equalsIgnoreCase);
+    }
+}
@@ -1,19 +1,83 @@
 package com.example.batch.processor;
 
+import com.example.batch.fingerprint.MemberChangeDetector;
+import com.example.batch.metrics.BatchMetrics;
 import com.example.batch.model.Activity;
 import com.example.batch.model.Member;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Evaluates every {@link ActivityRules} rule against a member in one pass.
+ * Returns the activities it triggered, or {@code null} (filtered) when the
+ * member is not admitted, unchanged, or matched no rule. Unchanged members
+ * are only suppressed when no rule depends on the current time; a new
+ * fingerprint is only held for members that emit activities.
+ */
 @Component
-public class MemberProcessor implements ItemProcessor<Member, Activity> {
+public class MemberProcessor implements ItemProcessor<Member, List<Activity>> {
+
+    private enum Outcome {
+        FILTERED("filtered"), UNCHANGED("unchanged"), NO_RULE("no-rule"), EMITTED("emitted");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    @Autowired
+    private MemberFilter memberFilter;
+
+    @Autowired
+    private MemberChangeDetector changeDetector;
+
+    @Autowired
+    private ActivityRules activityRules;
+
+    @Autowired
+    private BatchMetrics metrics;
+
     @Override
-    public Activity process(Member member) {
-        if (member.getPolicyStatus().equalsIgnoreCase("active")) {
-            return new Activity(member.getId(), "Policy check", Instant.now());
+    public List<Activity> process(Member member) {
+        long start = System.nanoTime();
+        Outcome outcome;
+        List<Activity> activities = null;
+        long fingerprint = 0;
+        boolean detectChanges = changeDetector.isEnabled() && !activityRules.isTimeDependent();
+        if (!memberFilter.matches(member)) {
+            outcome = Outcome.FILTERED;
+        } else if (detectChanges && (fingerprint = changeDetector.changedFingerprint(member)) == 0) {
+            outcome = Outcome.UNCHANGED;
+        } else {
+            activities = activityRules.evaluate(member);
+            if (activities.isEmpty()) {
+                activities = null;
+                outcome = Outcome.NO_RULE;
+            } else {
+                outcome = Outcome.EMITTED;
+                if (detectChanges) {
+                    changeDetector.expect(member.getId(), fingerprint);
+                }
+            }
+        }
+        Timer[] timers = metrics.perStep("batch.processor.process", this::processTimers);
+        timers[outcome.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return activities;
+    }
+
+    private Timer[] processTimers() {
+        Outcome[] outcomes = Outcome.values();
+        Timer[] timers = new Timer[outcomes.length];
+        for (Outcome outcome : outcomes) {
+            timers[outcome.ordinal()] = metrics.timer("batch.processor.process", "outcome", outcome.tag);
         }
-        return null;
+        return timers;
     }
 }
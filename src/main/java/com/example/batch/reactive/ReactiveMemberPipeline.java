@@ -0,0 +1,261 @@
+package com.example.batch.reactive;
+
+import com.example.batch.config.MemberReader;
+import com.example.batch.enrichment.PolicyEnricher;
+import com.example.batch.fingerprint.MemberChangeDetector;
+import com.example.batch.launch.SingleFlightJobLauncher;
+import com.example.batch.metrics.BatchMetrics;
+import com.example.batch.model.Activity;
+import com.example.batch.model.Member;
+import com.example.batch.processor.MemberFilter;
+import com.example.batch.processor.MemberProcessor;
+import com.example.batch.writer.ActivityBulkWriter;
+import com.example.batch.writer.WriteRateGovernor;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.BulkWriteOptions;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reactive alternative to {@code memberStep}. Members are read with
+ * {@link ReactiveMongoTemplate} in {@code _id} order, with the same read
+ * preference and max staleness as {@link MemberReader}, and the driver only
+ * fetches further batches as downstream stages ask for them. Batches of
+ * members are enriched and run through {@link MemberProcessor} on a bounded
+ * number of workers. The resulting activities are written with the bulk
+ * writes {@link ActivityBulkWriter} builds, with the same retry of failed
+ * items, paced by the {@link WriteRateGovernor} and with up to
+ * {@code batch.reactive.write-concurrency} in flight.
+ * <p>
+ * Both stages keep batches in read order, so after each write the last
+ * member id of the batch is saved to {@code batchReactiveCheckpoints}. An
+ * interrupted run resumes after that id unless it is restarted.
+ */
+@Component
+public class ReactiveMemberPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveMemberPipeline.class);
+
+    private static final String CHECKPOINTS = "batchReactiveCheckpoints";
+
+    private static final String CHECKPOINT_ID = "memberActivity";
+
+    /** Activities produced from one batch of members, and the last member id it covered. */
+    private record Batch(String lastId, List<Activity> activities) {
+    }
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private MemberFilter memberFilter;
+
+    @Autowired
+    private MemberProcessor memberProcessor;
+
+    @Autowired
+    private PolicyEnricher policyEnricher;
+
+    @Autowired
+    private MemberChangeDetector changeDetector;
+
+    @Autowired
+    private BatchMetrics metrics;
+
+    @Autowired
+    private ActivityBulkWriter activityWriter;
+
+    @Autowired
+    private WriteRateGovernor governor;
+
+    @Autowired
+    private SingleFlightJobLauncher jobLauncher;
+
+    @Value("${batch.reactive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${batch.reactive.concurrency:4}")
+    private int concurrency;
+
+    @Value("${batch.reactive.write-concurrency:4}")
+    private int writeConcurrency;
+
+    @Value("${batch.member.enrichment.enabled:false}")
+    private boolean enrichmentEnabled;
+
+    @Value("${batch.member.reader.read-preference:primary}")
+    private String readPreferenceName;
+
+    @Value("${batch.member.reader.max-staleness-seconds:0}")
+    private long maxStalenessSeconds;
+
+    private final AtomicLong read = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private volatile Disposable running;
+
+    private volatile Map<String, Object> lastRun = Map.of("status", "NEVER_RUN");
+
+    /**
+     * Starts a run in the background; false if one is already running, or if
+     * a job writing the same activities is.
+     */
+    public boolean start(boolean restart) {
+        return jobLauncher.startUnlessRunning(SingleFlightJobLauncher.ACTIVITY_JOBS, () -> startRun(restart));
+    }
+
+    public boolean isRunning() {
+        Disposable current = running;
+        return current != null && !current.isDisposed();
+    }
+
+    private synchronized boolean startRun(boolean restart) {
+        if (isRunning()) {
+            return false;
+        }
+        read.set(0);
+        written.set(0);
+        Instant startTime = Instant.now();
+        lastRun = progress("STARTED", startTime, null, null);
+        running = run(restart).subscribe(
+                null,
+                error -> {
+                    log.error("Reactive member pipeline failed", error);
+                    lastRun = progress("FAILED", startTime, Instant.now(), error.getMessage());
+                },
+                () -> lastRun = progress("COMPLETED", startTime, Instant.now(), null));
+        return true;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>(lastRun);
+        status.put("readCount", read.get());
+        status.put("writeCount", written.get());
+        return status;
+    }
+
+    public Mono<Void> run(boolean restart) {
+        return checkpoint(restart)
+                .map(lastId -> Query.query(criteria(lastId)))
+                .defaultIfEmpty(Query.query(criteria(null)))
+                .flatMapMany(query -> {
+                    query.with(Sort.by("id")).cursorBatchSize(batchSize).fields().include(MemberFilter.PROJECTED_FIELDS);
+                    query.withReadPreference(MemberReader.readPreference(readPreferenceName, maxStalenessSeconds));
+                    return reactiveMongoTemplate.find(query, Member.class);
+                })
+                .buffer(batchSize)
+                .flatMapSequential(members -> Mono.fromCallable(() -> process(members))
+                        .subscribeOn(Schedulers.boundedElastic()), concurrency)
+                .flatMapSequential(batch -> write(batch.activities()).thenReturn(batch), writeConcurrency)
+                .concatMap(batch -> saveCheckpoint(batch.lastId(), false))
+                .then(Mono.defer(() -> saveCheckpoint(null, true)))
+                .doFinally(signal -> changeDetector.flush())
+                .then();
+    }
+
+    private Criteria criteria(String lastId) {
+        Criteria criteria = memberFilter.criteria();
+        return lastId != null ? criteria.and("id").gt(lastId) : criteria;
+    }
+
+    private Batch process(List<Member> members) {
+        if (enrichmentEnabled) {
+            policyEnricher.enrich(members);
+        }
+        List<Activity> activities = new ArrayList<>(members.size());
+        for (Member member : members) {
+            List<Activity> memberActivities = memberProcessor.process(member);
+            if (memberActivities != null) {
+                activities.addAll(memberActivities);
+            }
+        }
+        read.addAndGet(members.size());
+        return new Batch(members.get(members.size() - 1).getId(), activities);
+    }
+
+    private Mono<Void> write(List<Activity> activities) {
+        if (activities.isEmpty()) {
+            return Mono.empty();
+        }
+        WriteConcern concern = activityWriter.concern();
+        ActivityBulkWriter.BulkWrite<?> write = activityWriter.bulkWrite(activities);
+        long waitNanos = governor.reserve(activities.size());
+        Mono<Long> paced = waitNanos > 0 ? Mono.delay(Duration.ofNanos(waitNanos)) : Mono.just(0L);
+        return paced.then(Mono.defer(() -> {
+            long start = System.nanoTime();
+            return execute(write, concern, 0)
+                    .doOnSuccess(done -> {
+                        long nanos = System.nanoTime() - start;
+                        governor.record(nanos);
+                        metrics.timer("batch.reactive.write").record(Duration.ofNanos(nanos));
+                        metrics.summary("batch.writer.batch.size").record(activities.size());
+                        written.addAndGet(activities.size());
+                        changeDetector.confirm(activities);
+                    });
+        }));
+    }
+
+    /** Issues {@code write}, resubmitting failed items as {@link ActivityBulkWriter} does. */
+    private <T> Mono<Void> execute(ActivityBulkWriter.BulkWrite<T> write, WriteConcern concern, int attempt) {
+        return reactiveMongoTemplate.getCollection("activities")
+                .flatMap(collection -> Mono.from(collection
+                        .withDocumentClass(write.documentClass())
+                        .withWriteConcern(concern)
+                        .bulkWrite(write.models(), new BulkWriteOptions().ordered(false))))
+                .then()
+                .onErrorResume(MongoBulkWriteException.class,
+                        e -> execute(activityWriter.retry(write, e, attempt), concern, attempt + 1));
+    }
+
+    private Mono<String> checkpoint(boolean restart) {
+        if (restart) {
+            return Mono.empty();
+        }
+        return reactiveMongoTemplate.findById(CHECKPOINT_ID, Document.class, CHECKPOINTS)
+                .filter(checkpoint -> !checkpoint.getBoolean("completed", false))
+                .mapNotNull(checkpoint -> checkpoint.getString("lastId"))
+                .doOnNext(lastId -> log.info("Resuming reactive member pipeline after {}", lastId));
+    }
+
+    private Mono<Void> saveCheckpoint(String lastId, boolean completed) {
+        Update update = new Update().set("completed", completed).set("updatedAt", new Date());
+        if (lastId != null) {
+            update.set("lastId", lastId);
+        }
+        return reactiveMongoTemplate.upsert(Query.query(Criteria.where("_id").is(CHECKPOINT_ID)), update, CHECKPOINTS).then();
+    }
+
+    private Map<String, Object> progress(String status, Instant startTime, Instant endTime, String error) {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("status", status);
+        progress.put("startTime", startTime);
+        progress.put("endTime", endTime);
+        if (error != null) {
+            progress.put("error", error);
+        }
+        return progress;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.batch.repository;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps a {@link JobRepository} so that the per-chunk metadata writes of a
+ * running step, {@code update(StepExecution)} and
+ * {@code updateExecutionContext(StepExecution)}, reach the store at most
+ * once every {@code everyChunks} calls or {@code intervalMillis}, whichever
+ * comes first. Everything else is passed straight through.
+ * <p>
+ * The first write for a step execution and any write once the step has
+ * left {@code STARTED} always go through, so the final state and the
+ * restart checkpoint of a finished step are exact. A step that dies while
+ * running restarts from its last written checkpoint, which can be up to
+ * one interval behind, and replays those chunks. That is only safe when
+ * replayed writes are idempotent, so the repository is only wrapped for
+ * UPSERT writes to DOCUMENT storage; INSERT mode would fail on duplicate
+ * keys and TIME_SERIES storage would record duplicate history.
+ */
+public final class CoalescingJobRepository implements InvocationHandler {
+
+    private final JobRepository delegate;
+
+    private final int everyChunks;
+
+    private final long intervalNanos;
+
+    private final Map<String, long[]> lastWrites = new ConcurrentHashMap<>();
+
+    private CoalescingJobRepository(JobRepository delegate, int everyChunks, long intervalMillis) {
+        this.delegate = delegate;
+        this.everyChunks = everyChunks;
+        this.intervalNanos = intervalMillis * 1_000_000;
+    }
+
+    public static JobRepository wrap(JobRepository delegate, int everyChunks, long intervalMillis) {
+        return (JobRepository) Proxy.newProxyInstance(JobRepository.class.getClassLoader(),
+                new Class<?>[]{JobRepository.class},
+                new CoalescingJobRepository(delegate, everyChunks, intervalMillis));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (args != null && args.length == 1 && args[0] instanceof StepExecution stepExecution
+                && (name.equals("update") || name.equals("updateExecutionContext"))
+                && !due(name, stepExecution)) {
+            return null;
+        }
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Whether this call should be written, recording it if so. */
+    private boolean due(String operation, StepExecution stepExecution) {
+        String key = operation + ':' + stepExecution.getId();
+        if (stepExecution.getStatus() != BatchStatus.STARTED) {
+            lastWrites.remove(key);
+            return true;
+        }
+        long now = System.nanoTime();
+        long[] state = lastWrites.get(key);
+        if (state == null) {
+            lastWrites.put(key, new long[]{0, now});
+            return true;
+        }
+        // state[0]: calls skipped since the last write, state[1]: time of the last write
+        if (++state[0] >= everyChunks || now - state[1] >= intervalNanos) {
+            state[0] = 0;
+            state[1] = now;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.batch.stream;
+
+import com.example.batch.enrichment.PolicyEnricher;
+import com.example.batch.incremental.HighWaterMarkListener;
+import com.example.batch.launch.SingleFlightJobLauncher;
+import com.example.batch.model.Activity;
+import com.example.batch.model.Member;
+import com.example.batch.processor.MemberFilter;
+import com.example.batch.processor.MemberProcessor;
+import com.example.batch.writer.ActivityBulkWriter;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.item.Chunk;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Continuous alternative to the scheduled job: tails the {@code members}
+ * change stream and pushes changed members through {@link MemberProcessor}
+ * and {@link ActivityBulkWriter} in micro-batches, flushed when either
+ * {@code max-batch-size} events are buffered or {@code max-wait} has passed.
+ * <p>
+ * The resume token of the last written event is stored in
+ * {@code batchResumeTokens} after every micro-batch, so a restart picks up
+ * from there. While idle, the cursor's post-batch token is stored instead,
+ * so the token keeps moving when no event matches. If the stored token has
+ * still fallen out of the oplog, it is dropped and the stream restarts from
+ * now, with a full rescan run of {@code memberActivityJob} to cover the gap. Change streams need a replica set; a single-node one
+ * ({@code mongod --replSet rs0} plus {@code rs.initiate()}) is enough.
+ */
+@Component
+@ConditionalOnProperty(name = "batch.member.change-stream.enabled", havingValue = "true")
+public class MemberChangeStreamRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberChangeStreamRunner.class);
+
+    private static final String TOKEN_COLLECTION = "batchResumeTokens";
+
+    private static final String TOKEN_ID = "members";
+
+    /** ChangeStreamHistoryLost, and ChangeStreamFatalError as reported by older servers for the same case. */
+    private static final Set<Integer> HISTORY_LOST = Set.of(286, 280);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MemberFilter memberFilter;
+
+    @Autowired
+    private MemberProcessor memberProcessor;
+
+    @Autowired
+    private ActivityBulkWriter activityWriter;
+
+    @Autowired
+    private PolicyEnricher policyEnricher;
+
+    @Autowired
+    private SingleFlightJobLauncher jobLauncher;
+
+    @Autowired
+    private Job memberActivityJob;
+
+    @Value("${batch.member.enrichment.enabled:false}")
+    private boolean enrichmentEnabled;
+
+    @Value("${batch.member.change-stream.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${batch.member.change-stream.max-wait-ms:1000}")
+    private long maxWaitMs;
+
+    @Value("${batch.member.change-stream.retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+
+    private volatile boolean running;
+
+    private boolean rescanPending;
+
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "member-change-stream");
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(maxWaitMs * 2);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openCursor()) {
+                if (rescanPending) {
+                    // launched once the new stream is open, so no change falls between the two
+                    launchFullRescan();
+                    rescanPending = false;
+                }
+                tail(cursor);
+            } catch (RuntimeException e) {
+                if (e instanceof MongoException mongoException && HISTORY_LOST.contains(mongoException.getCode())) {
+                    log.error("Stored resume token is no longer in the oplog; restarting the change stream from now"
+                            + " and running a full rescan to cover the gap", e);
+                    tokens().deleteOne(Filters.eq("_id", TOKEN_ID));
+                    rescanPending = true;
+                } else {
+                    log.warn("Change stream on members failed, resuming from last stored token", e);
+                    sleep(retryBackoffMs);
+                }
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor() {
+        Document match = new Document("operationType", new Document("$in", List.of("insert", "update", "replace")));
+        for (Map.Entry<String, Object> entry : memberFilter.criteria().getCriteriaObject().entrySet()) {
+            match.append("fullDocument." + entry.getKey(), entry.getValue());
+        }
+        ChangeStreamIterable<Document> changes = mongoTemplate.getCollection("members")
+                .watch(List.of(new Document("$match", match)))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .batchSize(maxBatchSize)
+                .maxAwaitTime(maxWaitMs, TimeUnit.MILLISECONDS);
+        BsonDocument token = loadToken();
+        if (token != null) {
+            changes = changes.resumeAfter(token);
+        }
+        return changes.cursor();
+    }
+
+    private void tail(MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor) {
+        List<Member> members = new ArrayList<>(maxBatchSize);
+        BsonDocument lastToken = null;
+        BsonDocument savedToken = null;
+        long windowStart = System.currentTimeMillis();
+        while (running) {
+            ChangeStreamDocument<Document> event = cursor.tryNext();
+            if (event != null && event.getFullDocument() != null) {
+                members.add(mongoTemplate.getConverter().read(Member.class, event.getFullDocument()));
+                lastToken = event.getResumeToken();
+            }
+            boolean windowElapsed = System.currentTimeMillis() - windowStart >= maxWaitMs;
+            if (members.size() >= maxBatchSize || (!members.isEmpty() && windowElapsed)) {
+                flush(members);
+                saveToken(lastToken);
+                savedToken = lastToken;
+                members.clear();
+            } else if (members.isEmpty() && event == null) {
+                // nothing buffered: the post-batch token is safe to store and keeps it inside the oplog window
+                BsonDocument postBatchToken = cursor.getResumeToken();
+                if (postBatchToken != null && !postBatchToken.equals(savedToken)) {
+                    saveToken(postBatchToken);
+                    savedToken = postBatchToken;
+                }
+            }
+            if (members.isEmpty()) {
+                windowStart = System.currentTimeMillis();
+            }
+        }
+    }
+
+    private void flush(List<Member> members) {
+        if (enrichmentEnabled) {
+            policyEnricher.enrich(members);
+        }
+        List<Activity> activities = new ArrayList<>(members.size());
+        for (Member member : members) {
+            List<Activity> memberActivities = memberProcessor.process(member);
+            if (memberActivities != null) {
+                activities.addAll(memberActivities);
+            }
+        }
+        if (!activities.isEmpty()) {
+            try {
+                activityWriter.write(new Chunk<>(activities));
+            } catch (InterruptedException e) {
+                // stop without saving the resume token, so these changes are replayed
+                Thread.currentThread().interrupt();
+                running = false;
+                throw new IllegalStateException("Interrupted while writing activities", e);
+            }
+        }
+    }
+
+    private void launchFullRescan() {
+        try {
+            jobLauncher.launch(memberActivityJob, new JobParametersBuilder()
+                    .addLong("time", System.currentTimeMillis())
+                    .addString(HighWaterMarkListener.FULL_RESCAN_PARAM, "true")
+                    .toJobParameters());
+        } catch (Exception e) {
+            log.error("Could not launch the full rescan after losing change stream history", e);
+        }
+    }
+
+    private BsonDocument loadToken() {
+        Document stored = tokens().find(Filters.eq("_id", TOKEN_ID)).first();
+        return stored != null ? stored.get("token", Document.class).toBsonDocument() : null;
+    }
+
+    private void saveToken(BsonDocument token) {
+        tokens().replaceOne(Filters.eq("_id", TOKEN_ID),
+                new Document("_id", TOKEN_ID).append("token", token),
+                new ReplaceOptions().upsert(true));
+    }
+
+    private MongoCollection<Document> tokens() {
+        return mongoTemplate.getCollection(TOKEN_COLLECTION);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
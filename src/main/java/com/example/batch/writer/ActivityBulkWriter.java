@@ -0,0 +1,208 @@
+package com.example.batch.writer;
+
+import com.example.batch.codec.BsonIds;
+import com.example.batch.fingerprint.MemberChangeDetector;
+import com.example.batch.metrics.BatchMetrics;
+import com.example.batch.model.Activity;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes each chunk of activities as a single unordered driver bulk write.
+ * If only some operations fail, the failed items alone are resubmitted,
+ * up to {@code batch.activity.writer.max-retries} times. Duplicate key
+ * errors, write concern errors and failures that name no failed item are
+ * not retried but rethrown.
+ * <p>
+ * The write concern is taken from the current step's {@code writeConcern}
+ * job parameter, falling back to {@code batch.activity.writer.write-concern}
+ * when there is none or when called outside a step.
+ * <p>
+ * With {@code batch.activity.storage=TIME_SERIES} every activity is
+ * inserted as a new measurement, keyed by {@code memberId} as the meta
+ * field. Each chunk is sorted by member and time first, so consecutive
+ * inserts land in the same bucket.
+ * <p>
+ * Every chunk is paced by the {@link WriteRateGovernor}, which is fed the
+ * chunk's write latency.
+ */
+@Component
+public class ActivityBulkWriter implements ItemWriter<Activity> {
+
+    public enum Mode { INSERT, UPSERT }
+
+    public enum Storage { DOCUMENT, TIME_SERIES }
+
+    private static final Comparator<Activity> BUCKET_ORDER = Comparator
+            .comparing(Activity::getMemberId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Activity::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    /**
+     * One bulk write: its models, encoded as {@code documentClass}, and the
+     * activity behind each model at the same index.
+     */
+    public record BulkWrite<T>(Class<T> documentClass, List<? extends Activity> items, List<WriteModel<T>> models) {
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private BatchMetrics metrics;
+
+    @Autowired
+    private MemberChangeDetector changeDetector;
+
+    @Autowired
+    private WriteRateGovernor governor;
+
+    @Value("${batch.activity.writer.write-concern:ACKNOWLEDGED}")
+    private String defaultWriteConcern;
+
+    @Value("${batch.activity.writer.mode:UPSERT}")
+    private Mode mode;
+
+    @Value("${batch.activity.storage:DOCUMENT}")
+    private Storage storage;
+
+    @Value("${batch.activity.writer.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${batch.mapping.codecs.enabled:false}")
+    private boolean codecsEnabled;
+
+    @Override
+    public void write(Chunk<? extends Activity> chunk) throws InterruptedException {
+        metrics.summary("batch.writer.batch.size").record(chunk.size());
+        governor.acquire(chunk.size());
+        Timer.Sample sample = Timer.start(metrics.registry());
+        try {
+            long start = System.nanoTime();
+            writeChunk(chunk);
+            governor.record(System.nanoTime() - start);
+            changeDetector.confirm(chunk.getItems());
+        } finally {
+            sample.stop(metrics.timer("batch.writer.write"));
+        }
+    }
+
+    private void writeChunk(Chunk<? extends Activity> chunk) {
+        WriteConcern concern = concern();
+        BulkWrite<?> write = bulkWrite(chunk.getItems());
+        for (int attempt = 0; !write.items().isEmpty(); attempt++) {
+            try {
+                execute(write, concern);
+                return;
+            } catch (MongoBulkWriteException e) {
+                write = retry(write, e, attempt);
+            }
+        }
+    }
+
+    private <T> void execute(BulkWrite<T> write, WriteConcern concern) {
+        mongoTemplate.getCollection("activities")
+                .withDocumentClass(write.documentClass())
+                .withWriteConcern(concern)
+                .bulkWrite(write.models(), new BulkWriteOptions().ordered(false));
+    }
+
+    /**
+     * The unordered bulk write for {@code activities}, as issued by this
+     * writer and by the reactive pipeline. Measurements are sorted into
+     * bucket order; documents are encoded with {@code ActivityCodec} when
+     * codecs are enabled and with the mapping converter otherwise.
+     */
+    public BulkWrite<?> bulkWrite(List<? extends Activity> activities) {
+        if (storage == Storage.TIME_SERIES) {
+            List<Activity> sorted = new ArrayList<>(activities);
+            sorted.sort(BUCKET_ORDER);
+            List<WriteModel<Document>> models = new ArrayList<>(sorted.size());
+            for (Activity activity : sorted) {
+                models.add(new InsertOneModel<>(new Document("timestamp", Date.from(activity.getTimestamp()))
+                        .append("memberId", BsonIds.toBson(activity.getMemberId()))
+                        .append("action", activity.getAction())));
+            }
+            return new BulkWrite<>(Document.class, sorted, models);
+        }
+        if (codecsEnabled) {
+            List<WriteModel<Activity>> models = new ArrayList<>(activities.size());
+            for (Activity activity : activities) {
+                models.add(mode == Mode.INSERT
+                        ? new InsertOneModel<>(activity)
+                        : new ReplaceOneModel<>(Filters.eq("_id", BsonIds.toBson(activity.getMemberId())),
+                                activity, new ReplaceOptions().upsert(true)));
+            }
+            return new BulkWrite<>(Activity.class, activities, models);
+        }
+        List<WriteModel<Document>> models = new ArrayList<>(activities.size());
+        for (Activity activity : activities) {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(activity, document);
+            models.add(mode == Mode.INSERT
+                    ? new InsertOneModel<>(document)
+                    : new ReplaceOneModel<>(Filters.eq("_id", document.get("_id")),
+                            document, new ReplaceOptions().upsert(true)));
+        }
+        return new BulkWrite<>(Document.class, activities, models);
+    }
+
+    /**
+     * What to resubmit after {@code write} failed with {@code e} on the given
+     * attempt: the failed items alone. Rethrows {@code e} when it must not be
+     * retried.
+     */
+    public <T> BulkWrite<T> retry(BulkWrite<T> write, MongoBulkWriteException e, int attempt) {
+        List<BulkWriteError> errors = e.getWriteErrors();
+        // with a write concern error the writes may or may not have been applied; only a rerun of the chunk can tell
+        if (e.getWriteConcernError() != null || errors.isEmpty() || attempt >= maxRetries
+                || errors.stream().anyMatch(error -> error.getCode() == DUPLICATE_KEY)) {
+            throw e;
+        }
+        List<Activity> items = new ArrayList<>(errors.size());
+        List<WriteModel<T>> models = new ArrayList<>(errors.size());
+        for (BulkWriteError error : errors) {
+            items.add(write.items().get(error.getIndex()));
+            models.add(write.models().get(error.getIndex()));
+        }
+        return new BulkWrite<>(write.documentClass(), items, models);
+    }
+
+    /**
+     * The write concern of the current step's {@code writeConcern} job
+     * parameter, or the configured default.
+     */
+    public WriteConcern concern() {
+        StepContext context = StepSynchronizationManager.getContext();
+        Object jobConcern = context != null ? context.getJobParameters().get("writeConcern") : null;
+        String writeConcern = jobConcern != null ? jobConcern.toString() : defaultWriteConcern;
+        WriteConcern concern = WriteConcern.valueOf(writeConcern);
+        if (concern == null) {
+            throw new IllegalArgumentException("Unknown write concern: " + writeConcern);
+        }
+        return concern;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.batch.writer;
+
+import com.example.batch.model.Activity;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Flattens the per-member activity lists of a chunk into one {@link ActivityBulkWriter} write. */
+@Component
+public class ActivityListWriter implements ItemWriter<List<Activity>> {
+
+    @Autowired
+    private ActivityBulkWriter delegate;
+
+    @Override
+    public void write(Chunk<? extends List<Activity>> chunk) throws Exception {
+        delegate.write(new Chunk<>(flatten(chunk.getItems())));
+    }
+
+    private static List<Activity> flatten(List<? extends List<Activity>> lists) {
+        List<Activity> activities = new ArrayList<>(lists.size());
+        for (List<Activity> list : lists) {
+            if (list != null) {
+                activities.addAll(list);
+            }
+        }
+        return activities;
+    }
+}
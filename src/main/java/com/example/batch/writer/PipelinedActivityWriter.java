@@ -0,0 +1,133 @@
+package com.example.batch.writer;
+
+import com.example.batch.config.MemberReader;
+import com.example.batch.model.Activity;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Writer for the pipelined {@code memberStep}. Each chunk of processed
+ * futures is resolved in order and handed to {@link ActivityBulkWriter} on
+ * a single background thread that shares the step's context, so chunk N is written while chunk N+1 is read
+ * and processed. At most {@code batch.member.pipeline.max-in-flight} chunks
+ * may be pending before {@link #write} blocks.
+ * <p>
+ * Because a commit no longer implies the chunk is in Mongo, this writer
+ * replaces the reader's restart checkpoint with the last member id whose
+ * write has completed. Once the reader is exhausted, every pending write is
+ * awaited before the step can finish. A restart may replay up to
+ * max-in-flight chunks, so this mode expects the writer in UPSERT mode.
+ */
+@Component
+@StepScope
+public class PipelinedActivityWriter implements ItemWriter<Future<List<Activity>>>, ItemStream {
+
+    private record PendingWrite(Future<?> write, String lastMemberId) {
+    }
+
+    @Autowired
+    private ActivityBulkWriter delegate;
+
+    @Autowired
+    private MemberReader memberReader;
+
+    @Autowired
+    private ThreadFactory memberWriteThreadFactory;
+
+    @Value("${batch.member.pipeline.max-in-flight:2}")
+    private int maxInFlight;
+
+    private final Deque<PendingWrite> pending = new ArrayDeque<>();
+
+    private ExecutorService writeExecutor;
+
+    private String confirmedId;
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        confirmedId = executionContext.getString(MemberReader.LAST_ID_KEY, null);
+        writeExecutor = Executors.newSingleThreadExecutor(memberWriteThreadFactory);
+    }
+
+    @Override
+    public void write(Chunk<? extends Future<List<Activity>>> chunk) throws Exception {
+        List<Activity> activities = new ArrayList<>(chunk.size());
+        for (Future<List<Activity>> future : chunk) {
+            List<Activity> memberActivities = future.get();
+            if (memberActivities != null) {
+                activities.addAll(memberActivities);
+            }
+        }
+        StepExecution stepExecution = StepSynchronizationManager.getContext().getStepExecution();
+        pending.addLast(new PendingWrite(
+                writeExecutor.submit(() -> {
+                    StepSynchronizationManager.register(stepExecution);
+                    try {
+                        delegate.write(new Chunk<>(activities));
+                    } finally {
+                        StepSynchronizationManager.close();
+                    }
+                    return null;
+                }),
+                memberReader.getLastId()));
+        while (pending.size() > maxInFlight || (!pending.isEmpty() && pending.peekFirst().write().isDone())) {
+            await(pending.removeFirst());
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        if (memberReader.isExhausted()) {
+            while (!pending.isEmpty()) {
+                await(pending.removeFirst());
+            }
+        }
+        if (confirmedId != null) {
+            executionContext.putString(MemberReader.LAST_ID_KEY, confirmedId);
+        } else {
+            executionContext.remove(MemberReader.LAST_ID_KEY);
+        }
+    }
+
+    @Override
+    public void close() {
+        pending.clear();
+        if (writeExecutor != null) {
+            writeExecutor.shutdown();
+        }
+        writeExecutor = null;
+    }
+
+    private void await(PendingWrite write) {
+        try {
+            write.write().get();
+            if (write.lastMemberId() != null) {
+                confirmedId = write.lastMemberId();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ItemStreamException("Interrupted waiting for a pipelined activity write", e);
+        } catch (ExecutionException e) {
+            throw new ItemStreamException("Pipelined activity write failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.batch.writer;
+
+import com.example.batch.metrics.BatchMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the rate of activity writes, in documents per second, so the batch
+ * stays within a latency budget on the replica set it shares with OLTP
+ * traffic. Each bulk write's round trip feeds a moving average. While the
+ * average is within {@code latency-budget-ms}, the limit grows by
+ * {@code increase-step}. When it goes over, the limit is multiplied by
+ * {@code decrease-factor} and a throttle event is counted in
+ * {@code batch.writer.throttle}.
+ * <p>
+ * {@link #acquire} paces callers against the current limit, and
+ * {@link #reserve} does the same for callers that must not block. The limit
+ * is published as the {@code batch.writer.rate.limit} gauge. When disabled,
+ * nothing is throttled.
+ */
+@Component
+public class WriteRateGovernor {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteRateGovernor.class);
+
+    private static final double SMOOTHING = 0.3;
+
+    @Autowired
+    private BatchMetrics metrics;
+
+    @Value("${batch.activity.writer.governor.enabled:false}")
+    private boolean enabled;
+
+    @Value("${batch.activity.writer.governor.latency-budget-ms:50}")
+    private double latencyBudgetMs;
+
+    @Value("${batch.activity.writer.governor.min-rate:200}")
+    private double minRate;
+
+    @Value("${batch.activity.writer.governor.max-rate:50000}")
+    private double maxRate;
+
+    @Value("${batch.activity.writer.governor.increase-step:500}")
+    private double increaseStep;
+
+    @Value("${batch.activity.writer.governor.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    private final AtomicLong rateLimit = new AtomicLong();
+
+    private double rate;
+
+    private double averageLatencyMs = -1;
+
+    private long nextFreeNanos;
+
+    @PostConstruct
+    public void init() {
+        rate = maxRate;
+        rateLimit.set((long) rate);
+        if (enabled) {
+            metrics.registry().gauge("batch.writer.rate.limit", rateLimit);
+        }
+    }
+
+    /** Blocks until {@code documents} more writes fit under the current limit. */
+    public void acquire(int documents) throws InterruptedException {
+        long waitNanos = reserve(documents);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Reserves a slot for {@code documents} more writes without blocking and
+     * returns how long the caller must wait before writing, in nanoseconds.
+     */
+    public long reserve(int documents) {
+        if (!enabled) {
+            return 0;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextFreeNanos);
+            nextFreeNanos = slot + (long) (documents * 1e9 / rate);
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            metrics.timer("batch.writer.throttle.wait").record(waitNanos, TimeUnit.NANOSECONDS);
+        }
+        return waitNanos;
+    }
+
+    /** Feeds one bulk write's round trip into the average and adjusts the limit. */
+    public void record(long latencyNanos) {
+        if (!enabled) {
+            return;
+        }
+        double latencyMs = latencyNanos / 1e6;
+        synchronized (this) {
+            averageLatencyMs = averageLatencyMs < 0 ? latencyMs
+                    : SMOOTHING * latencyMs + (1 - SMOOTHING) * averageLatencyMs;
+            if (averageLatencyMs > latencyBudgetMs) {
+                double previous = rate;
+                rate = Math.max(minRate, rate * decreaseFactor);
+                metrics.counter("batch.writer.throttle").increment();
+                log.info("Write latency {} ms over budget of {} ms, limiting activity writes from {} to {} per second",
+                        Math.round(averageLatencyMs), latencyBudgetMs, Math.round(previous), Math.round(rate));
+                // judge the new limit on its own writes, not the average that tripped it
+                averageLatencyMs = -1;
+            } else {
+                rate = Math.min(maxRate, rate + increaseStep);
+            }
+            rateLimit.set((long) rate);
+        }
+    }
+}